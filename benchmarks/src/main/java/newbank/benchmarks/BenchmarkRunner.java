@@ -0,0 +1,35 @@
+package newbank.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count and writes the results of every run as JSON.
+ *
+ * The arguments are the usual JMH ones, e.g. {@code DatabaseBenchmark.find -p rows=1000}. The thread counts
+ * are read from the {@code threads} system property (1,4 by default). The GC profiler is always on so the
+ * results carry the allocation rate next to the throughput.
+ * */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    for (String count: System.getProperty("threads", "1,4").split(",")) {
+      int threads = Integer.parseInt(count.trim());
+      Options options = new OptionsBuilder()
+              .parent(commandLine)
+              .threads(threads)
+              .addProfiler(GCProfiler.class)
+              .resultFormat(ResultFormatType.JSON)
+              .result(String.format("jmh-result-%d-threads.json", threads))
+              .build();
+      new Runner(options).run();
+    }
+  }
+}
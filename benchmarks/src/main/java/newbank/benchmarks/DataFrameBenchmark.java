@@ -0,0 +1,69 @@
+package newbank.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import newbank.database.csv.DataFrame;
+import newbank.database.wal.CommitPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the {@code DataFrame} reads and updates, without the table and the write-ahead log.
+ * A {@code DataFrame} is guarded by its table, so every benchmark thread gets a frame of its own.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataFrameBenchmark {
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int rows;
+
+  private String path;
+  private DataFrame frame;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.path = Fixtures.tempPath();
+    Fixtures.transactions(this.path, this.rows, CommitPolicy.durable()).close();
+    this.frame = new DataFrame(this.path + Fixtures.TABLE + ".csv");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Fixtures.delete(this.path);
+  }
+
+  @Benchmark
+  public long getData() {
+    long total = 0;
+    for (String[] row: this.frame.getData()) {
+      total += row.length;
+    }
+    return total;
+  }
+
+  @Benchmark
+  public boolean replaceLine() {
+    int row = 1 + ThreadLocalRandom.current().nextInt(this.rows);
+    List<String> fields = Arrays.asList(Integer.toString(row), Fixtures.customer(row), Fixtures.customer(row + 1), "1.0");
+    return this.frame.replaceLine(row, new ArrayList<>(fields));
+  }
+}
@@ -0,0 +1,80 @@
+package newbank.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import newbank.database.Database;
+import newbank.database.wal.CommitPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the {@code Database} operations on a transactions table of a given size.
+ *
+ * The write-ahead log uses a deferred commit policy so the benchmarks measure the database rather
+ * than the disk, {@code durable} selects the default policy instead.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int rows;
+
+  @Param({"false"})
+  public boolean durable;
+
+  private String path;
+  private Database db;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.path = Fixtures.tempPath();
+    CommitPolicy policy = this.durable ? CommitPolicy.durable() : CommitPolicy.deferred(256, 10);
+    this.db = Fixtures.transactions(this.path, this.rows, policy);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    this.db.close();
+    Fixtures.delete(this.path);
+  }
+
+  @Benchmark
+  public void insert() throws Exception {
+    int i = ThreadLocalRandom.current().nextInt(Fixtures.CUSTOMERS);
+    this.db.insert(Fixtures.TABLE, new ArrayList<>(Arrays.asList(Fixtures.customer(i), Fixtures.customer(i + 1), "1.0")));
+  }
+
+  @Benchmark
+  public ArrayList<ArrayList<Object>> find() throws Exception {
+    return this.db.find(Fixtures.TABLE, "sender", Fixtures.customer(ThreadLocalRandom.current().nextInt(Fixtures.CUSTOMERS)));
+  }
+
+  @Benchmark
+  public ArrayList<Object> findOne() throws Exception {
+    return this.db.findOne(Fixtures.TABLE, "sender", Fixtures.customer(ThreadLocalRandom.current().nextInt(Fixtures.CUSTOMERS)));
+  }
+
+  @Benchmark
+  public boolean update() throws Exception {
+    int i = ThreadLocalRandom.current().nextInt(Fixtures.CUSTOMERS);
+    return this.db.update(Fixtures.TABLE, "sender", Fixtures.customer(i), "amount", (double) i);
+  }
+}
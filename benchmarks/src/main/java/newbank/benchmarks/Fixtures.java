@@ -0,0 +1,65 @@
+package newbank.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import newbank.database.Database;
+import newbank.database.wal.CommitPolicy;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * The Fixtures class builds the databases the benchmarks run against.
+ * */
+final class Fixtures {
+  static final String TABLE = "transactions";
+  static final int CUSTOMERS = 1000;
+
+  private Fixtures() {}
+
+  /**
+   * Creates a database holding a transactions table (sender, recipient, amount).
+   * The rows are written straight to the CSV, which is much faster than inserting them one by one.
+   *
+   * @param path {@code String} Directory of the database.
+   * @param rows {@code int} Number of rows of the table.
+   * @param policy {@code CommitPolicy} Policy of the write-ahead log of the database returned.
+   *
+   * @return {@code Database} the database, ready to use.
+   * */
+  static Database transactions(String path, int rows, CommitPolicy policy) throws Exception {
+    Database builder = new Database(path);
+    builder.create();
+    builder.addTable(TABLE, new ArrayList<>(Arrays.asList("sender", "recipient", "amount")),
+            new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.STRING, Database.DATA_TYPES.DOUBLE)));
+    builder.close();
+    try (BufferedWriter out = Files.newBufferedWriter(Paths.get(path + TABLE + ".csv"), StandardOpenOption.APPEND)) {
+      for (int i = 1; i <= rows; i++) {
+        out.write(String.format(Locale.ROOT, "%d, %s, %s, %.1f\n", i, customer(i), customer(i + 1), (double) (i % 500)));
+      }
+    }
+    Database db = new Database(path);
+    db.setCommitPolicy(policy);
+    db.setCheckpointInterval(Integer.MAX_VALUE);
+    db.init();
+    return db;
+  }
+
+  static String customer(int i) {
+    return "customer" + (i % CUSTOMERS);
+  }
+
+  static String tempPath() throws IOException {
+    return Files.createTempDirectory("newbank-bench").toString() + File.separator;
+  }
+
+  static void delete(String path) throws IOException {
+    FileUtils.deleteDirectory(new File(path));
+  }
+}
@@ -0,0 +1,71 @@
+package newbank.benchmarks;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code NewBank.processRequest} for every command, each benchmark thread being a customer.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewBankBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Bank {
+    final NewBank bank = new NewBank();
+    final AtomicInteger customers = new AtomicInteger();
+  }
+
+  @State(Scope.Thread)
+  public static class Session {
+    CustomerID customer;
+    int accounts = 0;
+    boolean back = false;
+
+    @Setup
+    public void setUp(Bank state) {
+      String name = "customer" + state.customers.incrementAndGet();
+      this.customer = state.bank.addCustomer(name, "password", new PrintWriter(new StringWriter()));
+      state.bank.processRequest(this.customer, "NEWACCOUNT Savings");
+    }
+  }
+
+  @Benchmark
+  public String showMyAccounts(Bank state, Session session) {
+    return state.bank.processRequest(session.customer, "SHOWMYACCOUNTS");
+  }
+
+  @Benchmark
+  public String newAccount(Bank state, Session session) {
+    return state.bank.processRequest(session.customer, "NEWACCOUNT Account" + session.accounts++);
+  }
+
+  @Benchmark
+  public String move(Bank state, Session session) {
+    session.back = !session.back;
+    return state.bank.processRequest(session.customer, session.back ? "MOVE 1 Main Savings" : "MOVE 1 Savings Main");
+  }
+
+  @Benchmark
+  public String help(Bank state, Session session) {
+    return state.bank.processRequest(session.customer, "HELP");
+  }
+}
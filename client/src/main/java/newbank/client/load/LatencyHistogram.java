@@ -0,0 +1,76 @@
+package newbank.client.load;
+
+/**
+ * The LatencyHistogram class counts latencies in logarithmic buckets.
+ *
+ * Values under 64 microseconds have a bucket each, above that every power of two is split in 32 buckets,
+ * so a percentile is off by at most about 3% whatever the latency, with a fixed footprint.
+ * It isn't thread safe: every session records into its own histogram, merged at the end of the run.
+ * */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+
+  private final long[] counts = new long[LINEAR_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+  private long total = 0;
+  private long max = 0;
+
+  /**
+   * @param micros {@code long} Latency to record, in microseconds.
+   * */
+  public void record(long micros) {
+    long value = Math.max(0, micros);
+    this.counts[indexOf(value)]++;
+    this.total++;
+    this.max = Math.max(this.max, value);
+  }
+
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < this.counts.length; i++) {
+      this.counts[i] += other.counts[i];
+    }
+    this.total += other.total;
+    this.max = Math.max(this.max, other.max);
+  }
+
+  public long getCount() {
+    return this.total;
+  }
+
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * @param percentile {@code double} Percentile wanted, e.g. 99.9.
+   *
+   * @return {@code long} Highest latency of the bucket holding the percentile, in microseconds.
+   * */
+  public long percentile(double percentile) {
+    if (this.total == 0) { return 0; }
+    long rank = Math.max(1, (long) Math.ceil(this.total * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return Math.min(this.max, highestValueOf(i));
+      }
+    }
+    return this.max;
+  }
+
+  private static int indexOf(long value) {
+    if (value < LINEAR_BUCKETS) { return (int) value; }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  private static long highestValueOf(int index) {
+    if (index < LINEAR_BUCKETS) { return index; }
+    int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+    long top = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+}
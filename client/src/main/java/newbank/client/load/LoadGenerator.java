@@ -0,0 +1,102 @@
+package newbank.client.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LoadGenerator class replays a mix of commands against a NewBank server from many sessions at once
+ * and reports the throughput and the latency percentiles.
+ *
+ * Options are passed as key=value:
+ * host (localhost), port (14002), sessions (100), rate in requests per second for all the sessions (1000),
+ * duration in seconds (30) and mix, the weights of SHOWMYACCOUNTS, NEWACCOUNT and MOVE (70,5,25).
+ * */
+public class LoadGenerator {
+
+  public static void main(String[] args) throws InterruptedException {
+    HashMap<String, String> options = new HashMap<>();
+    for (String arg: args) {
+      String[] option = arg.split("=", 2);
+      if (option.length != 2) {
+        System.out.println("Usage: LoadGenerator [host=localhost] [port=14002] [sessions=100] [rate=1000] [duration=30] [mix=70,5,25]");
+        return;
+      }
+      options.put(option[0], option[1]);
+    }
+    String host = options.getOrDefault("host", "localhost");
+    int port = Integer.parseInt(options.getOrDefault("port", "14002"));
+    int sessionCount = Integer.parseInt(options.getOrDefault("sessions", "100"));
+    double rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+    int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+    int[] mix = cumulativeMix(options.getOrDefault("mix", "70,5,25"));
+
+    long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) * sessionCount / rate);
+    String runId = Long.toString(System.currentTimeMillis(), 36);
+    CountDownLatch ready = new CountDownLatch(sessionCount);
+    CountDownLatch start = new CountDownLatch(1);
+    long[] window = new long[2];
+    ArrayList<LoadSession> sessions = new ArrayList<>();
+    ArrayList<Thread> threads = new ArrayList<>();
+    System.out.printf("Opening %d sessions on %s:%d\n", sessionCount, host, port);
+    for (int i = 0; i < sessionCount; i++) {
+      LoadSession session = new LoadSession(host, port, String.format("load%s-%d", runId, i), mix, intervalNanos, ready, start, window);
+      Thread thread = new Thread(session, "newbank-load-" + i);
+      thread.setDaemon(true);
+      sessions.add(session);
+      threads.add(thread);
+      thread.start();
+    }
+    ready.await();
+
+    System.out.printf("Sending %.0f requests/s for %d s\n", rate, duration);
+    window[0] = System.nanoTime();
+    window[1] = window[0] + TimeUnit.SECONDS.toNanos(duration);
+    start.countDown();
+    for (Thread thread: threads) {
+      thread.join();
+    }
+    long elapsed = System.nanoTime() - window[0];
+
+    LatencyHistogram total = new LatencyHistogram();
+    long failures = 0;
+    int errors = 0;
+    for (LoadSession session: sessions) {
+      total.merge(session.getHistogram());
+      failures += session.getFailures();
+      if (session.getError() != null) {
+        errors++;
+        System.out.printf("Session failed: %s\n", session.getError().getMessage());
+      }
+    }
+    report(total, failures, errors, elapsed);
+  }
+
+  private static void report(LatencyHistogram histogram, long failures, int errors, long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    System.out.printf("Requests:   %d (%d failed), %d sessions lost\n", histogram.getCount(), failures, errors);
+    System.out.printf("Throughput: %.1f requests/s\n", histogram.getCount() / seconds);
+    System.out.printf("Latency:    p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms\n",
+            histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+            histogram.percentile(99.9) / 1000.0, histogram.getMax() / 1000.0);
+  }
+
+  /**
+   * @param mix {@code String} Weights of SHOWMYACCOUNTS, NEWACCOUNT and MOVE, e.g. 70,5,25.
+   *
+   * @return {@code int[]} Cumulative weights.
+   * */
+  private static int[] cumulativeMix(String mix) {
+    String[] weights = mix.split(",");
+    if (weights.length != 3) { throw new IllegalArgumentException("The mix needs three weights: SHOWMYACCOUNTS,NEWACCOUNT,MOVE"); }
+    int[] cumulative = new int[3];
+    int sum = 0;
+    for (int i = 0; i < 3; i++) {
+      sum += Integer.parseInt(weights[i].trim());
+      cumulative[i] = sum;
+    }
+    if (sum <= 0) { throw new IllegalArgumentException("The weights of the mix must add up to more than 0"); }
+    return cumulative;
+  }
+}
@@ -0,0 +1,147 @@
+package newbank.client.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadSession class is one scripted client of the {@code LoadGenerator}.
+ *
+ * It creates its own customer, logs in and then sends requests at a fixed interval.
+ * The server doesn't mark the end of a response, so every request is followed by an empty line:
+ * its reply, {@code PLEASE SELECT AN ACTION}, closes the response.
+ * Latencies are measured from the time a request was due rather than the time it was sent,
+ * so a slow server isn't hidden by the session waiting for it.
+ * */
+class LoadSession implements Runnable {
+  static final String PASSWORD = "Load#Test42";
+  private static final String END_OF_RESPONSE = "PLEASE SELECT AN ACTION";
+
+  private final String host;
+  private final int port;
+  private final String userName;
+  private final int[] mix;
+  private final long intervalNanos;
+  private final CountDownLatch ready;
+  private final CountDownLatch start;
+  private final long[] window;
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  private final Random random;
+  private long failures = 0;
+  private int accounts = 0;
+  private boolean moveBack = false;
+  private volatile IOException error;
+
+  /**
+   * @param mix {@code int[]} Cumulative weights of SHOWMYACCOUNTS, NEWACCOUNT and MOVE.
+   * @param intervalNanos {@code long} Time between two requests of the session.
+   * @param ready {@code CountDownLatch} Counted down once the session is logged in.
+   * @param start {@code CountDownLatch} Released when all the sessions must start sending requests.
+   * @param window {@code long[]} Start and end of the measurement, in {@code System.nanoTime()}, set before start is released.
+   * */
+  LoadSession(String host, int port, String userName, int[] mix, long intervalNanos,
+              CountDownLatch ready, CountDownLatch start, long[] window) {
+    this.host = host;
+    this.port = port;
+    this.userName = userName;
+    this.mix = mix;
+    this.intervalNanos = intervalNanos;
+    this.ready = ready;
+    this.start = start;
+    this.window = window;
+    this.random = new Random(userName.hashCode());
+  }
+
+  public void run() {
+    boolean loggedIn = false;
+    try (Socket socket = new Socket(this.host, this.port)) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      this.login(in, out);
+      loggedIn = true;
+      this.ready.countDown();
+      this.start.await();
+      // Sessions are spread over the interval so they don't all send at once.
+      long due = this.window[0] + (long) (this.random.nextDouble() * this.intervalNanos);
+      while (due < this.window[1]) {
+        LockSupport.parkNanos(due - System.nanoTime());
+        out.print(this.nextRequest() + "\n\n");
+        out.flush();
+        boolean failed = this.readResponse(in);
+        this.histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+        if (failed) { this.failures++; }
+        due += this.intervalNanos;
+      }
+    } catch (IOException e) {
+      this.error = e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (!loggedIn) { this.ready.countDown(); }
+    }
+  }
+
+  LatencyHistogram getHistogram() {
+    return this.histogram;
+  }
+
+  long getFailures() {
+    return this.failures;
+  }
+
+  IOException getError() {
+    return this.error;
+  }
+
+  /**
+   * Goes through the menu: creates the customer, logs in and opens a second account for the MOVEs.
+   * */
+  private void login(BufferedReader in, PrintWriter out) throws IOException {
+    out.print(String.join("\n", "2", this.userName, PASSWORD, "1", this.userName, PASSWORD) + "\n");
+    out.flush();
+    readUntil(in, "Login successful");
+    out.print("NEWACCOUNT Savings\n\n");
+    out.flush();
+    this.readResponse(in);
+  }
+
+  private String nextRequest() {
+    int pick = this.random.nextInt(this.mix[2]);
+    if (pick < this.mix[0]) {
+      return "SHOWMYACCOUNTS";
+    } else if (pick < this.mix[1]) {
+      return "NEWACCOUNT Load" + this.accounts++;
+    }
+    this.moveBack = !this.moveBack;
+    return this.moveBack ? "MOVE 1 Main Savings" : "MOVE 1 Savings Main";
+  }
+
+  /**
+   * Reads a response up to the reply of the empty line that follows the request.
+   *
+   * @return {@code boolean} true if the server answered with a failure.
+   * */
+  private boolean readResponse(BufferedReader in) throws IOException {
+    boolean failed = false;
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.equals(END_OF_RESPONSE)) { return failed; }
+      if (line.startsWith("FAIL")) { failed = true; }
+    }
+    throw new IOException("The server closed the connection");
+  }
+
+  private static void readUntil(BufferedReader in, String expected) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.contains(expected)) { return; }
+    }
+    throw new IOException(String.format("The server closed the connection before '%s'", expected));
+  }
+}
@@ -0,0 +1,174 @@
+package newbank.database;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Condition class is a criteria rows of a table are matched against, e.g. to update them.
+ *
+ * Conditions are built from the columns of the table and are checked against its schema when used:
+ * {@code Condition.and(Condition.eq("sender", "Maria"), Condition.gt("amount", 2.0))}.
+ * They are then compiled to a {@code Predicate} comparing the fields with the types of their columns.
+ * */
+public class Condition {
+  enum TYPES {
+    EQ,
+    RANGE,
+    AND,
+    OR,
+  }
+
+  private final TYPES type;
+  private final String column;
+  private final Object value;
+  private final Object to;
+  private final boolean fromInclusive;
+  private final boolean toInclusive;
+  private final List<Condition> children;
+
+  private Condition(TYPES type, String column, Object value, Object to, List<Condition> children) {
+    this(type, column, value, true, to, true, children);
+  }
+
+  private Condition(TYPES type, String column, Object value, boolean fromInclusive, Object to, boolean toInclusive, List<Condition> children) {
+    this.type = type;
+    this.column = column;
+    this.value = value;
+    this.fromInclusive = fromInclusive;
+    this.to = to;
+    this.toInclusive = toInclusive;
+    this.children = children;
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param value {@code Object} Value the field must equal, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field equals the value.
+   * */
+  public static Condition eq(String column, Object value) {
+    return new Condition(TYPES.EQ, column, value, null, Collections.emptyList());
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param from {@code Object} Lower bound, inclusive, of the type of the column. null for no lower bound.
+   * @param to {@code Object} Upper bound, inclusive, of the type of the column. null for no upper bound.
+   *
+   * @return {@code Condition} a condition matching the rows whose field falls within the range.
+   * */
+  public static Condition range(String column, Object from, Object to) {
+    return new Condition(TYPES.RANGE, column, from, to, Collections.emptyList());
+  }
+
+  /**
+   * Same as {@link #range(String, Object, Object)}, both bounds being required.
+   *
+   * @param column {@code String} Name of the column.
+   * @param from {@code Object} Lower bound, inclusive, of the type of the column.
+   * @param to {@code Object} Upper bound, inclusive, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field is between the bounds.
+   * */
+  public static Condition between(String column, Object from, Object to) {
+    if (from == null || to == null) { throw new IllegalArgumentException("Both bounds are required"); }
+    return range(column, from, to);
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param value {@code Object} Bound, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field is lower than the value.
+   * */
+  public static Condition lt(String column, Object value) {
+    return new Condition(TYPES.RANGE, column, null, true, value, false, Collections.emptyList());
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param value {@code Object} Bound, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field is lower than or equal to the value.
+   * */
+  public static Condition le(String column, Object value) {
+    return range(column, null, value);
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param value {@code Object} Bound, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field is greater than the value.
+   * */
+  public static Condition gt(String column, Object value) {
+    return new Condition(TYPES.RANGE, column, value, false, null, true, Collections.emptyList());
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   * @param value {@code Object} Bound, of the type of the column.
+   *
+   * @return {@code Condition} a condition matching the rows whose field is greater than or equal to the value.
+   * */
+  public static Condition ge(String column, Object value) {
+    return range(column, value, null);
+  }
+
+  /**
+   * @param conditions {@code Condition...} Conditions to combine.
+   *
+   * @return {@code Condition} a condition matching the rows that match all the conditions.
+   * */
+  public static Condition and(Condition... conditions) {
+    return new Condition(TYPES.AND, null, null, null, Collections.unmodifiableList(Arrays.asList(conditions.clone())));
+  }
+
+  /**
+   * @param conditions {@code Condition...} Conditions to combine.
+   *
+   * @return {@code Condition} a condition matching the rows that match any of the conditions.
+   * */
+  public static Condition or(Condition... conditions) {
+    return new Condition(TYPES.OR, null, null, null, Collections.unmodifiableList(Arrays.asList(conditions.clone())));
+  }
+
+  TYPES getType() {
+    return type;
+  }
+
+  String getColumn() {
+    return column;
+  }
+
+  /**
+   * @return {@code Object} Value of an equality, lower bound of a range.
+   * */
+  Object getValue() {
+    return value;
+  }
+
+  /**
+   * @return {@code Object} Upper bound of a range.
+   * */
+  Object getTo() {
+    return to;
+  }
+
+  boolean isFromInclusive() {
+    return fromInclusive;
+  }
+
+  boolean isToInclusive() {
+    return toInclusive;
+  }
+
+  boolean isComposite() {
+    return type == TYPES.AND || type == TYPES.OR;
+  }
+
+  List<Condition> getChildren() {
+    return children;
+  }
+}
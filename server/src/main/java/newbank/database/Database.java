@@ -1,17 +1,38 @@
 package newbank.database;
 
 import newbank.database.exceptions.*;
+import newbank.database.wal.CommitPolicy;
+import newbank.database.wal.LogRecord;
+import newbank.database.wal.WriteAheadLog;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The database package is designed following MVC paradigm.
@@ -20,9 +41,16 @@ import java.util.Objects;
  * It can be used by developers to make Create, Update operations on a CSV file.
  * */
 public class Database {
-  private final HashMap<String, Table> tables;
+  private final ConcurrentHashMap<String, Table> tables;
   private String path = String.format("%s/.newBankDatabase/", System.getProperty("user.dir"));
   private String configPath = String.format("%s/.newBankDatabase/config/", System.getProperty("user.dir"));
+  private WriteAheadLog log;
+  private CommitPolicy commitPolicy = CommitPolicy.durable();
+  private int checkpointInterval = 1000;
+  private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+  private final ConcurrentHashMap<String, Long> loadMillis = new ConcurrentHashMap<>();
+  // Tables are loaded concurrently: reading a data file overlaps with parsing another one.
+  private static final int LOAD_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
   public enum DATA_TYPES {
     BOOLEAN,
     CHAR,
@@ -32,6 +60,12 @@ public class Database {
     INTEGER,
     LONG,
   }
+  public enum STORAGE_FORMATS {
+    CSV,
+    MAPPED_CSV,
+    BINARY,
+  }
+  public static final String FORMAT_CONFIG_KEY = "@format";
 
   /**
    * It will create a {@code File} instance.
@@ -39,7 +73,7 @@ public class Database {
    * Also it will create a folder named .config to persist config files (.txt)
    * */
   public Database() {
-    this.tables = new HashMap<>();
+    this.tables = new ConcurrentHashMap<>();
   }
 
   /**
@@ -48,33 +82,150 @@ public class Database {
    * @param path {@code String} The desired path where files will be written.
    * */
   public Database(String path) {
-    this.tables = new HashMap<>();
+    this.tables = new ConcurrentHashMap<>();
     this.path = path;
+    this.configPath = String.format("%sconfig/", path);
   }
 
   /**
    * It will start a Database from an existing config and data set.
+   * The tables are loaded concurrently, from their image when {@link #snapshot()} wrote one that is still
+   * valid. The changes left in the write-ahead log are then replayed on the tables and checkpointed.
    *
    * @throws FileNotFoundException If the database folder doesn't exist.
+   * @throws IOException If a table couldn't be loaded or the write-ahead log couldn't be opened or replayed.
    * */
-  public void init() throws FileNotFoundException {
+  public void init() throws IOException {
     System.out.println("Initiating New Bank DB");
     File currentPath = new File(this.path);
     if(!currentPath.exists()) {
       throw new FileNotFoundException("The requested directory doesn't exist");
     }
     System.out.println("Reading Files...");
+    long start = System.nanoTime();
+    this.log = new WriteAheadLog(this.getLogPath(), this.commitPolicy);
     File databaseFolder = new File(this.path);
+    // A table converted by a crashed convertTable has both data files: its config says which one to open.
+    LinkedHashSet<String> tableNames = new LinkedHashSet<>();
     for (final File file: Objects.requireNonNull(databaseFolder.listFiles())) {
-      if(FilenameUtils.getExtension(file.getName()).endsWith("csv")) {
-        String tableName = FilenameUtils.getBaseName(file.getName());
-        this.tables.put(tableName, new Table(this.path, this.configPath, tableName));
-        System.out.printf("Table %s successfully Loaded!\n", tableName);
+      String extension = FilenameUtils.getExtension(file.getName());
+      if(extension.equals("csv") || extension.equals("bin")) {
+        tableNames.add(FilenameUtils.getBaseName(file.getName()));
+      }
+    }
+    ArrayList<Callable<Table>> loads = new ArrayList<>();
+    for (String tableName: tableNames) {
+      loads.add(() -> this.loadTable(tableName));
+    }
+    for (Table table: this.inParallel(loads)) {
+      this.tables.put(table.getName(), table);
+    }
+    System.out.printf("%d tables loaded in %d ms\n", this.tables.size(), (System.nanoTime() - start) / 1000000);
+    int replayed = this.log.replay(record -> {
+      if (record.getType() == LogRecord.TYPES.TRANSACTION) {
+        for (LogRecord child: record.getChildren()) {
+          this.replay(child);
+        }
+      } else {
+        this.replay(record);
       }
+    });
+    if (replayed > 0) {
+      System.out.printf("Replayed %d changes from the log\n", replayed);
+      this.checkpoint();
     }
     System.out.println("New Bank DB Ready to Use");
   }
 
+  private Table loadTable(String name) throws IOException {
+    long start = System.nanoTime();
+    Table table = new Table(this.path, this.configPath, this.getImagePath(name), name, this.log);
+    long millis = (System.nanoTime() - start) / 1000000;
+    this.loadMillis.put(name, millis);
+    System.out.printf("Table %s successfully Loaded%s in %d ms!\n", name, table.isRestored() ? " from its image" : "", millis);
+    return table;
+  }
+
+  /**
+   * It runs tasks on a pool of {@link #LOAD_THREADS} threads and waits for all of them.
+   *
+   * @param tasks {@code List<Callable<T>>} Tasks to run.
+   *
+   * @return {@code List<T>} Results of the tasks, in order.
+   *
+   * @throws IOException The first failure of a task.
+   * */
+  private <T> List<T> inParallel(List<Callable<T>> tasks) throws IOException {
+    if (tasks.isEmpty()) { return Collections.emptyList(); }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), LOAD_THREADS));
+    try {
+      ArrayList<T> results = new ArrayList<>(tasks.size());
+      for (Future<T> future: executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the tables");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * It will checkpoint the database and write an image of every CSV table, which the next {@link #init()}
+   * restores instead of parsing the CSV. An image is ignored once its CSV changed, so it is only worth
+   * taking before a shutdown or after loading a large table. The images are written concurrently.
+   *
+   * @return {@code int} Number of images written.
+   *
+   * @throws IOException If a table file or an image couldn't be written.
+   * */
+  public int snapshot() throws IOException {
+    this.checkpointLock.writeLock().lock();
+    try {
+      this.checkpoint();
+      Files.createDirectories(Paths.get(this.path, "snapshot"));
+      ArrayList<Callable<Boolean>> images = new ArrayList<>();
+      for (Table table: this.tables.values()) {
+        images.add(() -> table.writeImage(this.getImagePath(table.getName())));
+      }
+      int written = 0;
+      for (boolean image: this.inParallel(images)) {
+        if (image) { written++; }
+      }
+      return written;
+    } finally {
+      this.checkpointLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return {@code Map<String, Long>} Time in milliseconds {@link #init()} took to load each table.
+   * */
+  public Map<String, Long> getLoadMillis() {
+    return Collections.unmodifiableMap(this.loadMillis);
+  }
+
+  /**
+   * @return {@code long} Number of batches of the write-ahead log forced to disk since it was opened.
+   * */
+  public long getLogBatches() {
+    return this.log.getBatches();
+  }
+
+  private Path getImagePath(String table) {
+    return Paths.get(this.path, "snapshot", table + ".img");
+  }
+
+  private void replay(LogRecord record) {
+    Table table = this.tables.get(record.getTable());
+    if (table != null) { table.apply(record); }
+  }
+
   /**
    * It will start a Database from a non-existing database
    * */
@@ -89,6 +240,59 @@ public class Database {
         e.printStackTrace();
       }
     }
+    try {
+      this.log = new WriteAheadLog(this.getLogPath(), this.commitPolicy);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * It will write the changes recorded in the write-ahead log to the table files and empty the log.
+   * It is done automatically every {@code checkpointInterval} changes.
+   *
+   * @throws IOException If a table file or the log couldn't be written.
+   * */
+  public void checkpoint() throws IOException {
+    this.checkpointLock.writeLock().lock();
+    try {
+      this.log.flush();
+      for (Table table: this.tables.values()) {
+        table.flush();
+      }
+      this.log.truncate();
+    } finally {
+      this.checkpointLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * It will checkpoint the database and close the write-ahead log.
+   *
+   * @throws IOException If a table file or the log couldn't be written.
+   * */
+  public void close() throws IOException {
+    this.checkpoint();
+    this.log.close();
+  }
+
+  /**
+   * Sets how the changes written to the write-ahead log are batched and forced to disk.
+   * It must be called before {@link #create()} or {@link #init()}.
+   *
+   * @param commitPolicy {@code CommitPolicy} Policy of the write-ahead log.
+   * */
+  public void setCommitPolicy(CommitPolicy commitPolicy) {
+    this.commitPolicy = commitPolicy;
+  }
+
+  /**
+   * Sets how many changes can be recorded in the write-ahead log before a checkpoint is made.
+   *
+   * @param checkpointInterval {@code int} Number of changes between checkpoints.
+   * */
+  public void setCheckpointInterval(int checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
   }
 
   /**
@@ -102,11 +306,52 @@ public class Database {
    * @throws InvalidColumnNumberException If no column is passed or if the column types number and the columns number don't match.
    * */
   public void addTable(String name, ArrayList<String> columns, ArrayList<Database.DATA_TYPES> columnTypes) throws TableAlreadyExistsException, InvalidColumnNumberException {
+    this.addTable(name, columns, columnTypes, STORAGE_FORMATS.CSV);
+  }
+
+  /**
+   * It will add a table to the database, stored in the requested format.
+   *
+   * @param name {@code String} Table name.
+   * @param columns {@code ArrayList<String>} Table columns.
+   * @param columnTypes {@code DATA_TYPES} Data type of the columns. The index must match the column it is describing in the columns ArrayList.
+   * @param format {@code STORAGE_FORMATS} Format of the data file: CSV, memory-mapped CSV or binary columnar.
+   *
+   * @throws TableAlreadyExistsException If the table already exists. Name is repeated.
+   * @throws InvalidColumnNumberException If no column is passed or if the column types number and the columns number don't match.
+   * */
+  public void addTable(String name, ArrayList<String> columns, ArrayList<Database.DATA_TYPES> columnTypes, STORAGE_FORMATS format) throws TableAlreadyExistsException, InvalidColumnNumberException {
     if(this.tables.get(name) != null) { throw new TableAlreadyExistsException("Couldn't create table: Table already exists."); }
     if (columns.size() == 0) { throw new InvalidColumnNumberException("The number of columns must be greater than 0"); }
     if (columns.size() != columnTypes.size()) { throw new InvalidColumnNumberException("Miss match between schema and columns"); }
-    this.tables.put(name, new Table(this.path, name, columns, columnTypes));
-    this.buildTableConfig(name, columns, columnTypes);
+    this.tables.put(name, new Table(this.path, name, columns, columnTypes, format, this.log));
+    this.buildTableConfig(name, columns, columnTypes, format);
+  }
+
+  /**
+   * It will rewrite an existing table in another storage format, e.g. to convert a CSV table to the binary columnar format.
+   * The database is checkpointed first and the previous data file is removed.
+   *
+   * @param table {@code String} Table name.
+   * @param format {@code STORAGE_FORMATS} Target format.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws IOException If the table couldn't be written in the new format.
+   * */
+  public void convertTable(String table, STORAGE_FORMATS format) throws TableNotFoundException, IOException {
+    if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
+    this.checkpointLock.writeLock().lock();
+    try {
+      this.checkpoint();
+      Table target = this.tables.get(table);
+      String previous = target.convert(format);
+      this.writeTableConfig(table, target.getColumnNames(), target.getTypeList(), format);
+      if (previous != null) {
+        Files.deleteIfExists(Paths.get(previous));
+      }
+    } finally {
+      this.checkpointLock.writeLock().unlock();
+    }
   }
 
   /**
@@ -115,12 +360,22 @@ public class Database {
    * @param table {@code String} Table name.
    * @param fields {@code ArrayList<String>} Fields to insert.
    *
+   * @return {@code int} Index given to the row, see {@link #get(String, int)}. -1 if the log couldn't be written.
+   *
    * @throws TableNotFoundException If the table doesn't exist.
    * @throws InvalidColumnNumberException If the amount of fields and the columns number don't match.
    * */
-  public void insert(String table, ArrayList<String> fields) throws TableNotFoundException, InvalidColumnNumberException {
+  public int insert(String table, ArrayList<String> fields) throws TableNotFoundException, InvalidColumnNumberException {
     if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
-    this.tables.get(table).insert(fields);
+    int rowIndex;
+    this.checkpointLock.readLock().lock();
+    try {
+      rowIndex = this.tables.get(table).insert(fields);
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.checkpointIfNeeded();
+    return rowIndex;
   }
 
   /**
@@ -141,18 +396,116 @@ public class Database {
 
   /**
    * It search for the first occurrence on the requested table based on the criteria passed.
+   * The table is only read up to that occurrence.
    *
    * @param table {@code String} Name of the Table to search.
    * @param column {@code String} Name of the column that will be used to filter.
    * @param param {@code Object} Parameter that will be used to match the fields in the selected column.
    *
+   * @return {@code ArrayList<Object>} the first matching record, null if none.
+   *
    * @throws TableNotFoundException If the table doesn't exist.
    * @throws ColumnNotFound If the column doesn't exist.
    * @throws ColumnDataTypeAffinityException if the data type of param doesn't match the type on the table.
    * */
   public ArrayList<Object> findOne(String table, String column, Object param) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    return this.query(table).where(Condition.eq(column, param)).first();
+  }
+
+  /**
+   * It will start a lazy query on a table, see {@link Query}.
+   *
+   * @param table {@code String} Name of the Table to read.
+   *
+   * @return {@code Query} the query, to be narrowed with a condition, columns and a limit.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * */
+  public Query query(String table) throws TableNotFoundException {
+    return new Query(this.getTable(table));
+  }
+
+  /**
+   * It will count the rows of a table matching a condition. Tables without an index for the condition are
+   * scanned in parallel partitions.
+   *
+   * @param table {@code String} Name of the Table to read.
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   *
+   * @return {@code long} Number of rows matching.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public long count(String table, Condition where) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    return this.getTable(table).count(where);
+  }
+
+  /**
+   * It will add up a numeric column over the rows of a table matching a condition. Tables without an index
+   * for the condition are scanned in parallel partitions.
+   *
+   * @param table {@code String} Name of the Table to read.
+   * @param column {@code String} Name of the column to add up.
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   *
+   * @return {@code Number} Long for INTEGER and LONG columns, Double for FLOAT and DOUBLE columns.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the column is not numeric or the data type of a value doesn't match the type on the table.
+   * */
+  public Number sum(String table, String column, Condition where) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    return this.getTable(table).sum(column, where);
+  }
+
+  /**
+   * It search for all occurrences on the requested table whose value in a column falls within a range.
+   * The results are ordered by that value. A sorted index is used when available, see {@link #createIndex(String, String, boolean)}.
+   *
+   * @param table {@code String} Name of the Table to search.
+   * @param column {@code String} Name of the column that will be used to filter.
+   * @param from {@code Object} Lower bound, inclusive.
+   * @param to {@code Object} Upper bound, inclusive.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If the column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of the bounds doesn't match the type on the table.
+   * */
+  public ArrayList<ArrayList<Object>> findRange(String table, String column, Object from, Object to) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
+    return this.tables.get(table).findRange(column, from, to);
+  }
+
+  /**
+   * It will create a hash index on a column so equality searches and updates don't scan the table.
+   * Indexes are kept in memory and must be created again after {@link #init()}.
+   *
+   * @param table {@code String} Table name.
+   * @param column {@code String} Name of the column to index.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If the column doesn't exist.
+   * */
+  public void createIndex(String table, String column) throws TableNotFoundException, ColumnNotFound {
+    this.createIndex(table, column, false);
+  }
+
+  /**
+   * It will create a hash index on a column and, optionally, a sorted index used by {@link #findRange}.
+   * Indexes are kept in memory and must be created again after {@link #init()}.
+   *
+   * @param table {@code String} Table name.
+   * @param column {@code String} Name of the column to index.
+   * @param sorted {@code boolean} Whether to keep a sorted index for range scans.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If the column doesn't exist.
+   * */
+  public void createIndex(String table, String column, boolean sorted) throws TableNotFoundException, ColumnNotFound {
     if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
-    return this.tables.get(table).find(column, param, true).get(0);
+    this.tables.get(table).createIndex(column, sorted);
   }
 
   /**
@@ -172,7 +525,207 @@ public class Database {
    * */
   public boolean update(String table, String findColumn, Object findParam, String updateColumn, Object updateParam) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
     if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
-    return this.tables.get(table).update(findColumn, findParam, updateColumn, updateParam);
+    boolean updated;
+    this.checkpointLock.readLock().lock();
+    try {
+      updated = this.tables.get(table).update(findColumn, findParam, updateColumn, updateParam);
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.checkpointIfNeeded();
+    return updated;
+  }
+
+  /**
+   * It will update many columns of every row matching a condition, scanning the table once.
+   * The changes are written to disk with one write.
+   *
+   * @param table {@code String} Name of the Table to update.
+   * @param where {@code Condition} Condition the rows to update match, e.g. {@code Condition.eq("sender", "Maria")}.
+   * @param values {@code Map<String, Object>} New values by column name.
+   *
+   * @return {@code int} Number of rows updated, 0 if the log couldn't be written.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public int update(String table, Condition where, Map<String, Object> values) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    if(this.checkTable(table)) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", table)); }
+    int updated;
+    this.checkpointLock.readLock().lock();
+    try {
+      updated = this.tables.get(table).update(where, values);
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.checkpointIfNeeded();
+    return updated;
+  }
+
+  /**
+   * It will read a row by its index, the primary key given to it when it was inserted, without searching
+   * the table.
+   *
+   * @param table {@code String} Name of the Table to read.
+   * @param rowIndex {@code int} Index of the row.
+   *
+   * @return {@code ArrayList<Object>} the record, null if no row has that index.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * */
+  public ArrayList<Object> get(String table, int rowIndex) throws TableNotFoundException {
+    return this.getTable(table).get(rowIndex);
+  }
+
+  /**
+   * It will update many columns of a row found by its index.
+   *
+   * @param table {@code String} Name of the Table to update.
+   * @param rowIndex {@code int} Index of the row.
+   * @param values {@code Map<String, Object>} New values by column name.
+   *
+   * @return {@code boolean} true if the row was updated, false if no row has that index.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public boolean update(String table, int rowIndex, Map<String, Object> values) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    Table target = this.getTable(table);
+    boolean updated;
+    this.checkpointLock.readLock().lock();
+    try {
+      updated = target.update(rowIndex, values);
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.checkpointIfNeeded();
+    return updated;
+  }
+
+  /**
+   * It will delete a row found by its index. Its position is reused by a later insert but its index is
+   * never given again, even after a restart.
+   *
+   * @param table {@code String} Name of the Table to delete from.
+   * @param rowIndex {@code int} Index of the row.
+   *
+   * @return {@code boolean} true if the row was deleted, false if no row has that index.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * */
+  public boolean delete(String table, int rowIndex) throws TableNotFoundException {
+    Table target = this.getTable(table);
+    boolean deleted;
+    this.checkpointLock.readLock().lock();
+    try {
+      deleted = target.delete(rowIndex);
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.checkpointIfNeeded();
+    return deleted;
+  }
+
+  /**
+   * It will start a transaction: a group of inserts and updates applied together with one write to disk.
+   *
+   * @return {@code Transaction} the transaction, to be committed or rolled back.
+   * */
+  public Transaction beginTransaction() {
+    return new Transaction(this);
+  }
+
+  /**
+   * It commits the changes of a transaction.
+   * The tables are locked in the order of their names, so concurrent transactions don't deadlock.
+   *
+   * @param operations {@code List<Transaction.Operation>} Changes of the transaction, in order.
+   *
+   * @return {@code int} Number of rows inserted or updated.
+   *
+   * @throws IOException If the write-ahead log couldn't be written, in which case nothing is applied.
+   * */
+  int commit(List<Transaction.Operation> operations) throws IOException {
+    if (operations.isEmpty()) { return 0; }
+    TreeMap<String, Table> involved = new TreeMap<>();
+    for (Transaction.Operation operation: operations) {
+      involved.put(operation.table.getName(), operation.table);
+    }
+    ArrayList<LogRecord> records = new ArrayList<>();
+    long sequence;
+    this.checkpointLock.readLock().lock();
+    try {
+      for (Table table: involved.values()) {
+        table.lockForTransaction();
+      }
+      try {
+        HashMap<Table, TreeMap<Integer, ArrayList<String>>> staged = new HashMap<>();
+        for (Transaction.Operation operation: operations) {
+          TreeMap<Integer, ArrayList<String>> rows = staged.computeIfAbsent(operation.table, table -> new TreeMap<>());
+          int position;
+          if (operation.fields != null) {
+            position = operation.table.stageInsert(new ArrayList<>(operation.fields), rows);
+            records.add(LogRecord.insert(operation.table.getName(), position, rows.get(position)));
+          } else {
+            position = operation.table.stageUpdate(operation.findColumn, operation.findParam, operation.updateColumn, operation.updateParam, rows);
+            if (position < 0) { continue; }
+            records.add(LogRecord.update(operation.table.getName(), position, rows.get(position)));
+          }
+        }
+        if (records.isEmpty()) { return 0; }
+        sequence = this.log.append(LogRecord.transaction(records));
+        for (Map.Entry<Table, TreeMap<Integer, ArrayList<String>>> entry: staged.entrySet()) {
+          entry.getKey().applyStaged(entry.getValue());
+        }
+      } finally {
+        for (Table table: involved.values()) {
+          table.unlockForTransaction();
+        }
+      }
+    } finally {
+      this.checkpointLock.readLock().unlock();
+    }
+    this.log.sync(sequence);
+    this.checkpointIfNeeded();
+    return records.size();
+  }
+
+  /**
+   * @param name {@code String} Table name.
+   *
+   * @return {@code Table} the table.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * */
+  Table getTable(String name) throws TableNotFoundException {
+    Table table = this.tables.get(name);
+    if (table == null) { throw new TableNotFoundException(String.format("The table '%s' doesn't exist", name)); }
+    return table;
+  }
+
+  /**
+   * Makes a checkpoint once the write-ahead log holds {@code checkpointInterval} changes.
+   * */
+  private void checkpointIfNeeded() {
+    if (this.log.getRecords() < this.checkpointInterval) { return; }
+    try {
+      this.checkpointLock.writeLock().lock();
+      try {
+        // Another writer may have made the checkpoint while this one was waiting for the lock.
+        if (this.log.getRecords() < this.checkpointInterval) { return; }
+        this.checkpoint();
+      } finally {
+        this.checkpointLock.writeLock().unlock();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private String getLogPath() {
+    return String.format("%sdatabase.wal", this.path);
   }
 
   /**
@@ -244,22 +797,43 @@ public class Database {
    * @param tableName {@code String} Table name.
    * @param fields {@code ArrayList<String>} Table columns.
    * @param columnTypes {@code DATA_TYPES} Data type of the columns.
+   * @param format {@code STORAGE_FORMATS} Format of the data file.
+   * */
+  private void buildTableConfig(String tableName, ArrayList<String> fields, ArrayList<Database.DATA_TYPES> columnTypes, STORAGE_FORMATS format) {
+    try {
+      this.writeTableConfig(tableName, fields, columnTypes, format);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Will write the config file of a table, replacing the previous one atomically:
+   * a crash leaves either the previous config or the new one.
+   *
+   * @param tableName {@code String} Table name.
+   * @param fields {@code ArrayList<String>} Table columns.
+   * @param columnTypes {@code DATA_TYPES} Data type of the columns.
+   * @param format {@code STORAGE_FORMATS} Format of the data file.
+   *
+   * @throws IOException If the config couldn't be written.
    * */
-  private void buildTableConfig(String tableName, ArrayList<String> fields, ArrayList<Database.DATA_TYPES> columnTypes) {
-    String config = "";
+  private void writeTableConfig(String tableName, ArrayList<String> fields, ArrayList<Database.DATA_TYPES> columnTypes, STORAGE_FORMATS format) throws IOException {
+    String config = String.format("%s=%s\n", FORMAT_CONFIG_KEY, format);
     int columnNumber = fields.size();
     for (int i = 0; i < columnNumber; i++) {
       String name = fields.get(i);
       DATA_TYPES type = columnTypes.get(i);
       config += String.format("%s=%s\n", name, type);
     }
-    try {
-      File currentConfigPath = new File(this.configPath);
-      currentConfigPath.mkdir();
-      Files.createFile(Paths.get(String.format("%s%s.txt", this.configPath, tableName)));
-      Files.write(Paths.get(String.format("%s%s.txt", this.configPath, tableName)), config.getBytes());
-    } catch (IOException e) {
-      e.printStackTrace();
+    File currentConfigPath = new File(this.configPath);
+    currentConfigPath.mkdir();
+    Path configFile = Paths.get(String.format("%s%s.txt", this.configPath, tableName));
+    Path tmpPath = Paths.get(configFile + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.write(ByteBuffer.wrap(config.getBytes()));
+      channel.force(true);
     }
+    Files.move(tmpPath, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
   }
 }
@@ -0,0 +1,146 @@
+package newbank.database;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The Frame interface is the model of a table as seen by the {@code Table} class, whatever the storage format.
+ *
+ * Rows are addressed by their position. Fields are addressed by their column in the row, the column 0
+ * being the index of the row. Changes are kept in memory until {@link #flush()} is called at a checkpoint.
+ * */
+public interface Frame {
+
+  /**
+   * @return {@code int} Number of rows.
+   * */
+  int size();
+
+  /**
+   * Returns a row as text, the way it would be written in a CSV.
+   *
+   * @param position {@code int} Position of the row.
+   *
+   * @return {@code String[]} Fields of the row, index included.
+   * */
+  String[] getRow(int position);
+
+  /**
+   * Returns a field as a typed object.
+   *
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of the field.
+   * @param type {@code DATA_TYPES} Data type of the column.
+   *
+   * @return {@code Object} Value of the field.
+   * */
+  Object getValue(int position, int column, Database.DATA_TYPES type);
+
+  /**
+   * Returns a field as text.
+   *
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of the field.
+   *
+   * @return {@code String} Field as it would be written in a CSV.
+   * */
+  default String getField(int position, int column) {
+    return this.getRow(position)[column];
+  }
+
+  /**
+   * Returns a field of an INTEGER or LONG column, or the index, without boxing it.
+   * The typed getters are what a {@code RowCursor} reads; frames override them to skip the text when they can.
+   * The defaults parse the text of the field, which can allocate.
+   *
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of the field.
+   *
+   * @return {@code long} Value of the field.
+   * */
+  default long getLong(int position, int column) {
+    return Long.parseLong(this.getField(position, column));
+  }
+
+  /**
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of a FLOAT or DOUBLE field.
+   *
+   * @return {@code double} Value of the field.
+   * */
+  default double getDouble(int position, int column) {
+    return Double.parseDouble(this.getField(position, column));
+  }
+
+  /**
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of a BOOLEAN field.
+   *
+   * @return {@code boolean} Value of the field.
+   * */
+  default boolean getBoolean(int position, int column) {
+    return Boolean.parseBoolean(this.getField(position, column));
+  }
+
+  /**
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of a CHAR field.
+   *
+   * @return {@code char} Value of the field.
+   * */
+  default char getChar(int position, int column) {
+    return this.getField(position, column).charAt(0);
+  }
+
+  /**
+   * Finds the next row whose field in a column is equal to a value.
+   *
+   * @param column {@code int} Column of the field.
+   * @param value {@code Object} Value to match, of the type of the column.
+   * @param from {@code int} First position to check.
+   *
+   * @return {@code int} Position of the matching row, -1 if there is none.
+   * */
+  default int nextMatch(int column, Object value, int from) {
+    return this.nextMatch(column, value, from, this.size());
+  }
+
+  /**
+   * Finds the next row whose field in a column is equal to a value, within a range of positions.
+   * Ranges of a frame can be searched by concurrent readers.
+   *
+   * @param column {@code int} Column of the field.
+   * @param value {@code Object} Value to match, of the type of the column.
+   * @param from {@code int} First position to check.
+   * @param to {@code int} Position after the last one to check.
+   *
+   * @return {@code int} Position of the matching row, -1 if there is none.
+   * */
+  int nextMatch(int column, Object value, int from, int to);
+
+  /**
+   * Adds a row at the end of the frame.
+   *
+   * @param fields {@code ArrayList<String>} Fields of the row, index included.
+   *
+   * @return {@code boolean} true if the row was added successfully, else false.
+   * */
+  boolean addRow(ArrayList<String> fields);
+
+  /**
+   * Replaces a row.
+   *
+   * @param rowNumber {@code int} row to update, the header being the line 0.
+   * @param fields {@code ArrayList<String>} Fields of the row, index included.
+   *
+   * @return {@code boolean} true if the row was updated successfully, else false.
+   * */
+  boolean replaceLine(int rowNumber, ArrayList<String> fields);
+
+  /**
+   * Writes the changes held in memory to the table file.
+   *
+   * @throws IOException If the file couldn't be written.
+   * */
+  void flush() throws IOException;
+}
@@ -0,0 +1,128 @@
+package newbank.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Index class keeps a secondary index over one column of a table.
+ *
+ * It maps the typed values of the column to the positions of the rows holding them. A hash map
+ * serves equality lookups and, when requested, a sorted map serves range scans.
+ *
+ * Floating keys are normalized the way the scans compare them: -0.0 is kept under 0.0.
+ * */
+class Index {
+  private final Column column;
+  private final HashMap<Object, ArrayList<Integer>> hash;
+  private final TreeMap<Object, ArrayList<Integer>> sorted;
+
+  /**
+   * It instantiates an empty Index.
+   *
+   * @param column {@code Column} Column being indexed.
+   * @param sorted {@code boolean} Whether to keep a sorted index for range scans.
+   * */
+  public Index(Column column, boolean sorted) {
+    this.column = column;
+    this.hash = new HashMap<>();
+    this.sorted = sorted ? new TreeMap<>() : null;
+  }
+
+  public Column getColumn() {
+    return column;
+  }
+
+  public boolean isSorted() {
+    return sorted != null;
+  }
+
+  /**
+   * It adds a row position under a value.
+   *
+   * @param key {@code Object} Typed value of the field.
+   * @param position {@code int} Position of the row in the table.
+   * */
+  public void add(Object key, int position) {
+    key = normalize(key);
+    ArrayList<Integer> positions = this.hash.computeIfAbsent(key, k -> new ArrayList<>(1));
+    int at = Collections.binarySearch(positions, position);
+    if (at < 0) {
+      positions.add(-at - 1, position);
+    }
+    if (this.sorted != null) {
+      this.sorted.put(key, positions);
+    }
+  }
+
+  /**
+   * It removes a row position from a value.
+   *
+   * @param key {@code Object} Typed value of the field.
+   * @param position {@code int} Position of the row in the table.
+   * */
+  public void remove(Object key, int position) {
+    key = normalize(key);
+    ArrayList<Integer> positions = this.hash.get(key);
+    if (positions == null) { return; }
+    int at = Collections.binarySearch(positions, position);
+    if (at >= 0) {
+      positions.remove(at);
+    }
+    if (positions.isEmpty()) {
+      this.hash.remove(key);
+      if (this.sorted != null) {
+        this.sorted.remove(key);
+      }
+    }
+  }
+
+  /**
+   * It retrieves the positions of the rows holding a value, in table order.
+   *
+   * @param value {@code Object} Typed value to look up.
+   *
+   * @return {@code List<Integer>} Row positions, empty if none.
+   * */
+  public List<Integer> lookup(Object value) {
+    ArrayList<Integer> positions = this.hash.get(normalize(value));
+    if (positions == null) { return Collections.emptyList(); }
+    return positions;
+  }
+
+  /**
+   * It retrieves the positions of the rows holding a value within a range, ordered by value.
+   *
+   * @param from {@code Object} Lower bound, inclusive.
+   * @param to {@code Object} Upper bound, inclusive.
+   *
+   * @return {@code List<Integer>} Row positions, empty if none.
+   * */
+  @SuppressWarnings("unchecked")
+  public List<Integer> range(Object from, Object to) {
+    ArrayList<Integer> result = new ArrayList<>();
+    from = normalize(from);
+    to = normalize(to);
+    if (((Comparable<Object>) from).compareTo(to) > 0) { return result; }
+    for (Map.Entry<Object, ArrayList<Integer>> entry: this.sorted.subMap(from, true, to, true).entrySet()) {
+      result.addAll(entry.getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Boxed -0.0 and 0.0 are different keys, though they are equal numbers.
+   *
+   * @param key {@code Object} Typed value.
+   *
+   * @return {@code Object} the key the value is kept under.
+   * */
+  private static Object normalize(Object key) {
+    if (key instanceof Double && (Double) key == 0.0) { return 0.0; }
+    if (key instanceof Float && (Float) key == 0.0f) { return 0.0f; }
+    return key;
+  }
+}
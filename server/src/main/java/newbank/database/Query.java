@@ -0,0 +1,108 @@
+package newbank.database;
+
+import newbank.database.exceptions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The Query class reads the rows of a table lazily.
+ *
+ * Rows are read as they are consumed and only the fields of the selected columns of matching rows are
+ * parsed, so a query over a large table runs in constant memory and stops reading once its limit is reached:
+ * {@code db.query("transactions").where(Condition.eq("sender", "Maria")).select("amount").limit(10).stream()}.
+ * */
+public class Query {
+  private final Table table;
+  private Condition where = null;
+  private List<String> columns = null;
+  private long limit = Long.MAX_VALUE;
+
+  Query(Table table) {
+    this.table = table;
+  }
+
+  /**
+   * @param condition {@code Condition} Condition the rows returned match.
+   *
+   * @return {@code Query} this query.
+   * */
+  public Query where(Condition condition) {
+    this.where = condition;
+    return this;
+  }
+
+  /**
+   * @param columns {@code String...} Columns returned, in this order. Every column by default.
+   *
+   * @return {@code Query} this query.
+   * */
+  public Query select(String... columns) {
+    this.columns = new ArrayList<>(Arrays.asList(columns));
+    return this;
+  }
+
+  /**
+   * @param limit {@code long} Most rows returned.
+   *
+   * @return {@code Query} this query.
+   * */
+  public Query limit(long limit) {
+    this.limit = limit;
+    return this;
+  }
+
+  /**
+   * @return {@code Iterator<ArrayList<Object>>} Matching rows in table order.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public Iterator<ArrayList<Object>> iterator() throws ColumnNotFound, ColumnDataTypeAffinityException {
+    return this.table.scan(this.where, this.columns, this.limit);
+  }
+
+  /**
+   * @return {@code Stream<ArrayList<Object>>} Matching rows in table order.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public Stream<ArrayList<Object>> stream() throws ColumnNotFound, ColumnDataTypeAffinityException {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * It visits the matching rows in table order without copying them: the visitor is passed the same
+   * {@link RowCursor} on every row, whose typed getters read the fields in place. The selected columns are
+   * ignored, every column can be read. The visitor must not change the table.
+   *
+   * @param visitor {@code Consumer<RowCursor>} Called on every matching row.
+   *
+   * @return {@code long} Number of rows visited.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public long forEach(Consumer<RowCursor> visitor) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    return this.table.visit(this.where, this.limit, visitor);
+  }
+
+  /**
+   * @return {@code ArrayList<Object>} First matching row, null if none.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public ArrayList<Object> first() throws ColumnNotFound, ColumnDataTypeAffinityException {
+    Iterator<ArrayList<Object>> rows = this.table.scan(this.where, this.columns, 1);
+    return rows.hasNext() ? rows.next() : null;
+  }
+}
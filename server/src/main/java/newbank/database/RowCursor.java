@@ -0,0 +1,78 @@
+package newbank.database;
+
+import newbank.database.exceptions.ColumnNotFound;
+
+/**
+ * The RowCursor class reads the rows visited by {@link Query#forEach} without copying them.
+ *
+ * One cursor is moved from row to row and its getters read the fields straight from the frame of the table:
+ * numeric, boolean and char fields are returned as primitives. Only a binary table reads them from primitive
+ * arrays, allocating nothing per row. A CSV table parses the text of its floating fields, and a memory-mapped
+ * CSV parses integral fields from its bytes but decodes a new String for every string and floating field read.
+ * Columns are numbered from 0 in the order of the schema, and {@link #getColumn(String)} resolves a name once,
+ * before the rows are visited.
+ *
+ * A cursor is only valid inside the visitor it was passed to.
+ * */
+public final class RowCursor {
+  private final Table table;
+  private Frame frame;
+  private int position = -1;
+
+  RowCursor(Table table) {
+    this.table = table;
+  }
+
+  void moveTo(Frame frame, int position) {
+    this.frame = frame;
+    this.position = position;
+  }
+
+  /**
+   * @param name {@code String} Name of a column.
+   *
+   * @return {@code int} Number of the column, to pass to the getters.
+   *
+   * @throws ColumnNotFound If the column doesn't exist.
+   * */
+  public int getColumn(String name) throws ColumnNotFound {
+    Column col = this.table.getColumn(name);
+    if (col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+    return col.getNumber();
+  }
+
+  /**
+   * @return {@code int} Index of the row.
+   * */
+  public int getIndex() {
+    return (int) this.frame.getLong(this.position, 0);
+  }
+
+  public int getInt(int column) {
+    return (int) this.frame.getLong(this.position, column + 1);
+  }
+
+  public long getLong(int column) {
+    return this.frame.getLong(this.position, column + 1);
+  }
+
+  public float getFloat(int column) {
+    return (float) this.frame.getDouble(this.position, column + 1);
+  }
+
+  public double getDouble(int column) {
+    return this.frame.getDouble(this.position, column + 1);
+  }
+
+  public boolean getBoolean(int column) {
+    return this.frame.getBoolean(this.position, column + 1);
+  }
+
+  public char getChar(int column) {
+    return this.frame.getChar(this.position, column + 1);
+  }
+
+  public String getString(int column) {
+    return this.frame.getField(this.position, column + 1);
+  }
+}
@@ -0,0 +1,348 @@
+package newbank.database;
+
+import java.util.BitSet;
+
+/**
+ * The RowPredicate class is a {@code Condition} compiled against the schema of a table.
+ *
+ * Columns are resolved and values unboxed once, when the condition is compiled, so testing a row only reads
+ * its fields through the typed getters of the {@code Frame}: integral and floating fields are compared as
+ * longs and doubles, whatever text they were written with, and strings are compared by the frame itself.
+ * */
+abstract class RowPredicate {
+  // Matches no row, e.g. for the integers greater than Long.MAX_VALUE.
+  private static final RowPredicate NONE = new Any(new RowPredicate[0]);
+
+  /**
+   * @param frame {@code Frame} Frame of the table.
+   * @param position {@code int} Position of the row.
+   *
+   * @return {@code boolean} true if the row matches.
+   * */
+  abstract boolean test(Frame frame, int position);
+
+  /**
+   * Finds the next matching row within a range of positions.
+   *
+   * @param frame {@code Frame} Frame of the table.
+   * @param from {@code int} First position to check.
+   * @param to {@code int} Position after the last one to check.
+   *
+   * @return {@code int} Position of the matching row, -1 if there is none.
+   * */
+  int next(Frame frame, int from, int to) {
+    for (int position = from; position < to; position++) {
+      if (this.test(frame, position)) { return position; }
+    }
+    return -1;
+  }
+
+  /**
+   * It compiles a condition already checked against the schema of a table.
+   *
+   * @param condition {@code Condition} Condition to compile.
+   * @param table {@code Table} Table the condition is used on.
+   *
+   * @return {@code RowPredicate} the predicate.
+   * */
+  static RowPredicate compile(Condition condition, Table table) {
+    if (condition.isComposite()) {
+      RowPredicate[] children = new RowPredicate[condition.getChildren().size()];
+      for (int i = 0; i < children.length; i++) {
+        children[i] = compile(condition.getChildren().get(i), table);
+      }
+      return condition.getType() == Condition.TYPES.AND ? new All(children) : new Any(children);
+    }
+    Column col = table.getColumn(condition.getColumn());
+    int column = col.getNumber() + 1;
+    if (condition.getType() == Condition.TYPES.EQ) {
+      return equal(col.getType(), column, condition.getValue());
+    }
+    Object from = condition.getValue();
+    Object to = condition.getTo();
+    switch (col.getType()) {
+      case INTEGER:
+      case LONG:
+        long lower = from == null ? Long.MIN_VALUE : ((Number) from).longValue();
+        long upper = to == null ? Long.MAX_VALUE : ((Number) to).longValue();
+        if (from != null && !condition.isFromInclusive()) {
+          if (lower == Long.MAX_VALUE) { return NONE; }
+          lower++;
+        }
+        if (to != null && !condition.isToInclusive()) {
+          if (upper == Long.MIN_VALUE) { return NONE; }
+          upper--;
+        }
+        return new LongRange(column, lower, upper);
+      case FLOAT:
+      case DOUBLE:
+        return new DoubleRange(column, col.getType() == Database.DATA_TYPES.FLOAT,
+                from == null ? Double.NEGATIVE_INFINITY : ((Number) from).doubleValue(), from == null || condition.isFromInclusive(),
+                to == null ? Double.POSITIVE_INFINITY : ((Number) to).doubleValue(), to == null || condition.isToInclusive());
+      default: // STRING, CHAR, BOOLEAN
+        return new ComparableRange(col.getType(), column, from, condition.isFromInclusive(), to, condition.isToInclusive());
+    }
+  }
+
+  /**
+   * It restricts a predicate to the rows not deleted.
+   *
+   * @param tombstones {@code BitSet} Positions of the deleted rows, read when the rows are tested.
+   * @param predicate {@code RowPredicate} Predicate, null for every row.
+   *
+   * @return {@code RowPredicate} the predicate.
+   * */
+  static RowPredicate live(BitSet tombstones, RowPredicate predicate) {
+    return new Live(tombstones, predicate);
+  }
+
+  /**
+   * It compiles an equality on a column.
+   *
+   * @param type {@code DATA_TYPES} Data type of the column.
+   * @param column {@code int} Column of the frame, the index being 0.
+   * @param value {@code Object} Value of the type of the column.
+   *
+   * @return {@code RowPredicate} the predicate.
+   * */
+  static RowPredicate equal(Database.DATA_TYPES type, int column, Object value) {
+    switch (type) {
+      case INTEGER:
+      case LONG:
+        long integral = ((Number) value).longValue();
+        return new LongRange(column, integral, integral);
+      case FLOAT:
+      case DOUBLE:
+        double floating = ((Number) value).doubleValue();
+        return new DoubleRange(column, type == Database.DATA_TYPES.FLOAT, floating, true, floating, true);
+      case BOOLEAN:
+        return new BooleanEquals(column, (Boolean) value);
+      case CHAR:
+        return new CharEquals(column, (Character) value);
+      default: // STRING
+        return new StringEquals(column, value);
+    }
+  }
+
+  /**
+   * It checks a field written as text, e.g. in a row staged by a transaction, the way a predicate of
+   * {@link #equal(Database.DATA_TYPES, int, Object)} checks the frame.
+   *
+   * @param type {@code DATA_TYPES} Data type of the column.
+   * @param field {@code String} Field as text.
+   * @param value {@code Object} Value of the type of the column.
+   *
+   * @return {@code boolean} true if the field equals the value.
+   * */
+  static boolean equal(Database.DATA_TYPES type, String field, Object value) {
+    switch (type) {
+      case INTEGER:
+      case LONG:
+        return Long.parseLong(field) == ((Number) value).longValue();
+      case FLOAT:
+        return Float.parseFloat(field) == ((Number) value).floatValue();
+      case DOUBLE:
+        return Double.parseDouble(field) == ((Number) value).doubleValue();
+      default: // STRING, CHAR, BOOLEAN
+        return Database.string2Object(type, field).equals(value);
+    }
+  }
+
+  private static final class Live extends RowPredicate {
+    private final BitSet tombstones;
+    private final RowPredicate predicate;
+
+    private Live(BitSet tombstones, RowPredicate predicate) {
+      this.tombstones = tombstones;
+      this.predicate = predicate;
+    }
+
+    boolean test(Frame frame, int position) {
+      return !this.tombstones.get(position) && (this.predicate == null || this.predicate.test(frame, position));
+    }
+
+    @Override
+    int next(Frame frame, int from, int to) {
+      if (this.predicate == null) {
+        int position = this.tombstones.nextClearBit(from);
+        return position < to ? position : -1;
+      }
+      int position = this.predicate.next(frame, from, to);
+      while (position >= 0 && this.tombstones.get(position)) {
+        position = this.predicate.next(frame, position + 1, to);
+      }
+      return position;
+    }
+  }
+
+  private static final class All extends RowPredicate {
+    private final RowPredicate[] children;
+
+    private All(RowPredicate[] children) {
+      this.children = children;
+    }
+
+    boolean test(Frame frame, int position) {
+      for (RowPredicate child: this.children) {
+        if (!child.test(frame, position)) { return false; }
+      }
+      return true;
+    }
+  }
+
+  private static final class Any extends RowPredicate {
+    private final RowPredicate[] children;
+
+    private Any(RowPredicate[] children) {
+      this.children = children;
+    }
+
+    boolean test(Frame frame, int position) {
+      for (RowPredicate child: this.children) {
+        if (child.test(frame, position)) { return true; }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Integral fields within inclusive bounds; an equality is a range of one value.
+   * */
+  private static final class LongRange extends RowPredicate {
+    private final int column;
+    private final long from;
+    private final long to;
+
+    private LongRange(int column, long from, long to) {
+      this.column = column;
+      this.from = from;
+      this.to = to;
+    }
+
+    boolean test(Frame frame, int position) {
+      long value = frame.getLong(position, this.column);
+      return value >= this.from && value <= this.to;
+    }
+  }
+
+  /**
+   * Floating fields within bounds compared as doubles, so 1.00 equals 1.0 and -0.0 equals 0.0.
+   * FLOAT fields are rounded to floats first, as their bounds were.
+   * */
+  private static final class DoubleRange extends RowPredicate {
+    private final int column;
+    private final boolean single;
+    private final double from;
+    private final boolean fromInclusive;
+    private final double to;
+    private final boolean toInclusive;
+
+    private DoubleRange(int column, boolean single, double from, boolean fromInclusive, double to, boolean toInclusive) {
+      this.column = column;
+      this.single = single;
+      this.from = from;
+      this.fromInclusive = fromInclusive;
+      this.to = to;
+      this.toInclusive = toInclusive;
+    }
+
+    boolean test(Frame frame, int position) {
+      double value = frame.getDouble(position, this.column);
+      if (this.single) { value = (float) value; }
+      return (this.fromInclusive ? value >= this.from : value > this.from)
+              && (this.toInclusive ? value <= this.to : value < this.to);
+    }
+  }
+
+  private static final class BooleanEquals extends RowPredicate {
+    private final int column;
+    private final boolean value;
+
+    private BooleanEquals(int column, boolean value) {
+      this.column = column;
+      this.value = value;
+    }
+
+    boolean test(Frame frame, int position) {
+      return frame.getBoolean(position, this.column) == this.value;
+    }
+  }
+
+  private static final class CharEquals extends RowPredicate {
+    private final int column;
+    private final char value;
+
+    private CharEquals(int column, char value) {
+      this.column = column;
+      this.value = value;
+    }
+
+    boolean test(Frame frame, int position) {
+      return frame.getChar(position, this.column) == this.value;
+    }
+  }
+
+  /**
+   * Strings are scanned by the frame, which compares bytes, text or dictionary codes without decoding them.
+   * */
+  private static final class StringEquals extends RowPredicate {
+    private final int column;
+    private final Object value;
+
+    private StringEquals(int column, Object value) {
+      this.column = column;
+      this.value = value;
+    }
+
+    boolean test(Frame frame, int position) {
+      return frame.getField(position, this.column).equals(this.value);
+    }
+
+    @Override
+    int next(Frame frame, int from, int to) {
+      return frame.nextMatch(this.column, this.value, from, to);
+    }
+  }
+
+  private static final class ComparableRange extends RowPredicate {
+    private final Database.DATA_TYPES type;
+    private final int column;
+    private final Comparable<Object> from;
+    private final boolean fromInclusive;
+    private final Comparable<Object> to;
+    private final boolean toInclusive;
+
+    @SuppressWarnings("unchecked")
+    private ComparableRange(Database.DATA_TYPES type, int column, Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+      this.type = type;
+      this.column = column;
+      this.from = (Comparable<Object>) from;
+      this.fromInclusive = fromInclusive;
+      this.to = (Comparable<Object>) to;
+      this.toInclusive = toInclusive;
+    }
+
+    boolean test(Frame frame, int position) {
+      Object value;
+      switch (this.type) {
+        case CHAR:
+          value = frame.getChar(position, this.column);
+          break;
+        case BOOLEAN:
+          value = frame.getBoolean(position, this.column);
+          break;
+        default: // STRING
+          value = frame.getField(position, this.column);
+      }
+      if (this.from != null) {
+        int compared = this.from.compareTo(value);
+        if (compared > 0 || compared == 0 && !this.fromInclusive) { return false; }
+      }
+      if (this.to != null) {
+        int compared = this.to.compareTo(value);
+        if (compared < 0 || compared == 0 && !this.toInclusive) { return false; }
+      }
+      return true;
+    }
+  }
+}
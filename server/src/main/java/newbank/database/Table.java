@@ -1,7 +1,11 @@
 package newbank.database;
 
+import newbank.database.binary.ColumnFrame;
 import newbank.database.csv.DataFrame;
+import newbank.database.csv.MappedDataFrame;
 import newbank.database.exceptions.*;
+import newbank.database.wal.LogRecord;
+import newbank.database.wal.WriteAheadLog;
 
 import java.io.File;
 import java.io.IOException;
@@ -9,72 +13,336 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * The Table class encapsulates the logic of the controller the database package.
  *
- * It is used to update parameters in tables, parse and filter the CSV data.
+ * It is used to update parameters in tables, parse and filter the data of its {@code Frame},
+ * whose class depends on the storage format of the table.
+ * Reads share the table lock while inserts and updates hold it exclusively.
+ *
+ * Every row has an index, its primary key, given in sequence by inserts and recovered from the data when
+ * the table is loaded. Rows are addressed by index through a map to their position. A deleted row is
+ * left in place as a tombstone, its index negated, and its position is reused by the next insert.
  * */
 class Table {
+  // Rows scanned by one task of a parallel scan; smaller tables are scanned by the calling thread.
+  static final int PARTITION_SIZE = 8192;
+  // Rows a partition scans between two checks of the first match found.
+  private static final int CANCEL_CHECK_ROWS = 1024;
+
+  private final String path;
+  private final String name;
+  private final WriteAheadLog log;
   private int columnNumber;
   private int lastIndex = 0;
   private HashMap<String, Column> schema;
+  private ArrayList<String> columnNames;
   private ArrayList<Database.DATA_TYPES> typeList;
-  private final DataFrame dataFrame;
+  private Database.STORAGE_FORMATS format = Database.STORAGE_FORMATS.CSV;
+  private Frame frame;
+  private boolean restored = false;
+  // Position of the row of every index, and positions of the deleted rows, which inserts reuse.
+  private final HashMap<Integer, Integer> slots = new HashMap<>();
+  private final BitSet tombstones = new BitSet();
+  private final HashMap<Integer, Index> indexes = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
   /**
    * It instantiates a Table class.
    *
-   * @param path {@code String} Path where .csv files would be created.
+   * @param path {@code String} Path where data files would be created.
    * @param name {@code String} Table name.
    * @param columns {@code ArrayList<String>} Table columns.
    * @param columnTypes {@code DATA_TYPES} Data type of the columns. The index must match the column it is describing in the columns ArrayList.
+   * @param format {@code STORAGE_FORMATS} Format of the data file.
+   * @param log {@code WriteAheadLog} Log of the database where changes are recorded.
    * */
-  public Table(String path, String name, ArrayList<String> columns, ArrayList<Database.DATA_TYPES> columnTypes) {
-    String filePath = String.format("%s%s.csv", path, name);
-    File csv = new File(filePath);
-    if(!csv.exists()) {
-      this.dataFrame = new DataFrame(filePath, columns);
-    } else {
-      this.dataFrame = new DataFrame(filePath);
-    }
+  public Table(String path, String name, ArrayList<String> columns, ArrayList<Database.DATA_TYPES> columnTypes, Database.STORAGE_FORMATS format, WriteAheadLog log) {
+    this.path = path;
+    this.name = name;
+    this.log = log;
+    this.format = format;
     this.columnNumber = columns.size();
     this.schema = new HashMap<>();
+    this.columnNames = columns;
     this.typeList = columnTypes;
     for (int i = 0; i < this.columnNumber; i++) {
       this.schema.put(columns.get(i), new Column(columnTypes.get(i), i));
     }
+    this.frame = this.openFrame(format);
   }
 
   /**
    * It instantiates a Table class.
    *
-   * @param path {@code String} Path where .csv files would reside.
+   * A CSV table is restored from its image when the CSV didn't change since the image was written.
+   *
+   * @param path {@code String} Path where data files would reside.
    * @param configPath {@code String} Path where .config files would reside.
+   * @param image {@code Path} Image written by {@link #writeImage(Path)}, null to read the data file.
    * @param name {@code String} Table name.
+   * @param log {@code WriteAheadLog} Log of the database where changes are recorded.
+   *
+   * @throws IOException If the config couldn't be read or doesn't match the data file.
    * */
-  public Table(String path, String configPath, String name) {
-    String filePath = String.format("%s%s.csv", path, name);
+  public Table(String path, String configPath, Path image, String name, WriteAheadLog log) throws IOException {
+    this.path = path;
+    this.name = name;
+    this.log = log;
     this.loadConfig(String.format("%s%s.txt", configPath, name));
-    this.dataFrame = new DataFrame(filePath);
+    if (this.columnNumber == 0) { throw new IOException(String.format("The config of table '%s' has no columns", name)); }
+    if (image != null && this.format == Database.STORAGE_FORMATS.CSV) {
+      this.frame = DataFrame.restore(getFilePath(path, name, this.format), image);
+      this.restored = this.frame != null;
+    }
+    if (this.frame == null) {
+      this.frame = this.openFrame(this.format);
+    }
+    if (this.frame.size() > 0 && this.frame.getRow(0).length > this.columnNumber + 1) {
+      throw new IOException(String.format("The data file of table '%s' doesn't match its config", name));
+    }
+    for (int position = 0; position < this.frame.size(); position++) {
+      this.track(position, (int) this.frame.getLong(position, 0));
+    }
+  }
+
+  /**
+   * It returns the path of the data file of a table.
+   *
+   * @param path {@code String} Path where data files reside.
+   * @param name {@code String} Table name.
+   * @param format {@code STORAGE_FORMATS} Format of the data file.
+   *
+   * @return {@code String} Path of the data file.
+   * */
+  public static String getFilePath(String path, String name, Database.STORAGE_FORMATS format) {
+    switch (format) {
+      case BINARY:
+        return String.format("%s%s.bin", path, name);
+      default: // CSV, MAPPED_CSV
+        return String.format("%s%s.csv", path, name);
+    }
+  }
+
+  public Database.STORAGE_FORMATS getFormat() {
+    return format;
+  }
+
+  public ArrayList<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public ArrayList<Database.DATA_TYPES> getTypeList() {
+    return typeList;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getColumnNumber() {
+    return columnNumber;
+  }
+
+  /**
+   * @return {@code boolean} true if the table was restored from its image.
+   * */
+  public boolean isRestored() {
+    return restored;
+  }
+
+  /**
+   * It writes the rows of a CSV table to an image restored faster than the CSV is parsed, see
+   * {@link DataFrame#writeImage(Path)}. The other formats are read as fast as an image would be.
+   *
+   * @param image {@code Path} File to write.
+   *
+   * @return {@code boolean} true if an image was written.
+   *
+   * @throws IOException If the image couldn't be written.
+   * */
+  boolean writeImage(Path image) throws IOException {
+    if (!(this.frame instanceof DataFrame)) { return false; }
+    this.lock.readLock().lock();
+    try {
+      ((DataFrame) this.frame).writeImage(image);
+      return true;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param column {@code String} Name of the column.
+   *
+   * @return {@code Column} the column, null if it doesn't exist.
+   * */
+  public Column getColumn(String column) {
+    return this.schema.get(column);
+  }
+
+  /**
+   * It opens the data file of the table, creating it if it doesn't exist.
+   *
+   * @param format {@code STORAGE_FORMATS} Format of the data file.
+   *
+   * @return {@code Frame} the frame of the data file.
+   * */
+  private Frame openFrame(Database.STORAGE_FORMATS format) {
+    String filePath = getFilePath(this.path, this.name, format);
+    switch (format) {
+      case BINARY:
+        return new ColumnFrame(filePath, this.typeList);
+      case MAPPED_CSV:
+        if (!new File(filePath).exists()) {
+          return new MappedDataFrame(filePath, this.columnNames);
+        }
+        return new MappedDataFrame(filePath);
+      default: // CSV
+        if (!new File(filePath).exists()) {
+          return new DataFrame(filePath, this.columnNames);
+        }
+        return new DataFrame(filePath);
+    }
+  }
+
+  /**
+   * It rewrites the table in another storage format. The previous data file is kept: it must only be removed
+   * once the config names the new format, so a crash in between still finds the data the config points to.
+   * Both CSV formats share the same file, which is only opened again.
+   * Pending changes must have been checkpointed.
+   *
+   * @param format {@code STORAGE_FORMATS} Target format.
+   *
+   * @return {@code String} Path of the previous data file, to remove, null if the file is the same.
+   *
+   * @throws IOException If the new data file couldn't be written.
+   * */
+  public String convert(Database.STORAGE_FORMATS format) throws IOException {
+    if (format == this.format) { return null; }
+    this.lock.writeLock().lock();
+    try {
+      this.frame.flush();
+      String previousPath = getFilePath(this.path, this.name, this.format);
+      if (previousPath.equals(getFilePath(this.path, this.name, format))) {
+        this.frame = this.openFrame(format);
+        this.format = format;
+        return null;
+      }
+      Files.deleteIfExists(Paths.get(getFilePath(this.path, this.name, format)));
+      Frame converted = this.openFrame(format);
+      for (int position = 0; position < this.frame.size(); position++) {
+        converted.addRow(new ArrayList<>(Arrays.asList(this.frame.getRow(position))));
+      }
+      converted.flush();
+      this.frame = converted;
+      this.format = format;
+      return previousPath;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
   }
 
   /**
    * It inserts a record in the table.
    *
+   * The row takes the position of a deleted row if there is one, else it is added at the end.
+   *
    * @param row {@code ArrayList<String>} fields to insert in the table
    *
+   * @return {@code int} Index given to the row, -1 if the log couldn't be written.
+   *
    * @throws InvalidColumnNumberException if the amount of fields doesn't correspond with the amount of columns.
    * */
-  public void insert(ArrayList<String> row) throws InvalidColumnNumberException {
+  public int insert(ArrayList<String> row) throws InvalidColumnNumberException {
     if(this.columnNumber != row.size()) {
       throw new InvalidColumnNumberException("The number fields doesn't match the number of columns of the table");
     }
-    this.lastIndex++;
-    row.add(0, Integer.toString(this.lastIndex));
-    this.dataFrame.addRow(row);
+    long sequence;
+    int rowIndex;
+    this.lock.writeLock().lock();
+    try {
+      rowIndex = ++this.lastIndex;
+      row.add(0, Integer.toString(rowIndex));
+      int position = this.tombstones.isEmpty() ? this.frame.size() : this.tombstones.nextSetBit(0);
+      sequence = this.log.append(LogRecord.insert(this.name, position, row));
+      this.putRow(position, row);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return -1;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return this.sync(sequence) ? rowIndex : -1;
+  }
+
+  /**
+   * It applies a record of the write-ahead log to the table.
+   * The next index given to an inserted row follows the indexes replayed, see {@link #putRow(int, ArrayList)}.
+   *
+   * @param record {@code LogRecord} Record read back from the log.
+   * */
+  public void apply(LogRecord record) {
+    this.lock.writeLock().lock();
+    try {
+      this.putRow(record.getPosition(), new ArrayList<>(Arrays.asList(record.getFields())));
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * It writes the changes made since the last checkpoint to the table file.
+   *
+   * @throws IOException If the file couldn't be written.
+   * */
+  public void flush() throws IOException {
+    this.lock.readLock().lock();
+    try {
+      this.frame.flush();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * It creates an index over a column, replacing any existing index on it.
+   *
+   * @param column {@code String} Name of the column to index.
+   * @param sorted {@code boolean} Whether to also keep a sorted index for range scans.
+   *
+   * @throws ColumnNotFound If the column doesn't exist.
+   * */
+  public void createIndex(String column, boolean sorted) throws ColumnNotFound {
+    Column col = this.schema.get(column);
+    if(col == null) { throw new ColumnNotFound("The column you're indexing doesn't exist"); }
+    Index index = new Index(col, sorted);
+    this.lock.writeLock().lock();
+    try {
+      for (int position = 0; position < this.frame.size(); position++) {
+        if (this.tombstones.get(position)) { continue; }
+        index.add(this.frame.getValue(position, col.getNumber() + 1, col.getType()), position);
+      }
+      this.indexes.put(col.getNumber(), index);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
   }
 
   /**
@@ -94,7 +362,12 @@ class Table {
     if(col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
     if(!Database.checkTypeAffinity(col.getType(), param)) { throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type");}
     int columnIndex = col.getNumber();
-    return this.filterResults(columnIndex, param, stopAtFirst, false);
+    this.lock.readLock().lock();
+    try {
+      return this.filterResults(columnIndex, param, stopAtFirst, false);
+    } finally {
+      this.lock.readLock().unlock();
+    }
   }
 
   /**
@@ -115,23 +388,388 @@ class Table {
     Column updateCol = this.schema.get(updateColumn);
     if(findCol == null || updateCol == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
     if( !Database.checkTypeAffinity(findCol.getType(), findParam) || !Database.checkTypeAffinity(updateCol.getType(), updateParam) ) { throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type"); }
-    int columnIndex = findCol.getNumber();
-    ArrayList<ArrayList<Object>> result = this.filterResults(columnIndex, findParam, true, true);
-    if (result.size() == 0) { return false; }
+    long sequence;
+    this.lock.writeLock().lock();
+    try {
+      List<Integer> positions = this.matchPositions(findCol.getNumber(), findParam, true);
+      if (positions.size() == 0) { return false; }
+
+      int position = positions.get(0);
+      int updateColIndex = updateCol.getNumber() + 1;
+      ArrayList<String> row = new ArrayList<>(Arrays.asList(this.frame.getRow(position)));
+      row.set(updateColIndex, updateParam.toString());
+      sequence = this.log.append(LogRecord.update(this.name, position, row));
+      this.putRow(position, row);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return this.sync(sequence);
+  }
+
+  /**
+   * It updates many columns of every row matching a condition in one pass.
+   * All the rows changed are logged as one record, forced to disk with one write.
+   *
+   * @param where {@code Condition} Condition the rows to update match.
+   * @param values {@code Map<String, Object>} New values by column name.
+   *
+   * @return {@code int} Number of rows updated, 0 if the log couldn't be written.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public int update(Condition where, Map<String, Object> values) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    this.checkCondition(where);
+    int[] updateColumns = new int[values.size()];
+    String[] updateValues = new String[values.size()];
+    this.resolveValues(values, updateColumns, updateValues);
+    long sequence;
+    int updated;
+    this.lock.writeLock().lock();
+    try {
+      List<Integer> positions = this.matchPositions(where);
+      if (positions.isEmpty()) { return 0; }
+      ArrayList<LogRecord> records = new ArrayList<>(positions.size());
+      ArrayList<ArrayList<String>> rows = new ArrayList<>(positions.size());
+      for (int position: positions) {
+        ArrayList<String> row = new ArrayList<>(Arrays.asList(this.frame.getRow(position)));
+        for (int j = 0; j < updateColumns.length; j++) {
+          row.set(updateColumns[j], updateValues[j]);
+        }
+        rows.add(row);
+        records.add(LogRecord.update(this.name, position, row));
+      }
+      sequence = this.log.append(records.size() == 1 ? records.get(0) : LogRecord.transaction(records));
+      for (int j = 0; j < rows.size(); j++) {
+        this.putRow(positions.get(j), rows.get(j));
+      }
+      updated = rows.size();
+    } catch (IOException e) {
+      e.printStackTrace();
+      return 0;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return this.sync(sequence) ? updated : 0;
+  }
+
+  /**
+   * It checks new values against the schema and writes them as the fields of a row.
+   *
+   * @param values {@code Map<String, Object>} New values by column name.
+   * @param columns {@code int[]} Filled with the columns of the frame updated.
+   * @param fields {@code String[]} Filled with the new fields, in the same order.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  private void resolveValues(Map<String, Object> values, int[] columns, String[] fields) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    int i = 0;
+    for (Map.Entry<String, Object> entry: values.entrySet()) {
+      Column col = this.schema.get(entry.getKey());
+      if (col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+      if (!Database.checkTypeAffinity(col.getType(), entry.getValue())) { throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type"); }
+      columns[i] = col.getNumber() + 1;
+      fields[i] = entry.getValue().toString();
+      i++;
+    }
+  }
+
+  /**
+   * It reads a row by its index, found through the positions of the rows rather than by a search.
+   *
+   * @param rowIndex {@code int} Index of the row.
+   *
+   * @return {@code ArrayList<Object>} the record, null if no row has that index.
+   * */
+  public ArrayList<Object> get(int rowIndex) {
+    this.lock.readLock().lock();
+    try {
+      Integer position = this.slots.get(rowIndex);
+      return position == null ? null : this.parseResult(position);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * It updates many columns of a row found by its index.
+   *
+   * @param rowIndex {@code int} Index of the row.
+   * @param values {@code Map<String, Object>} New values by column name.
+   *
+   * @return {@code boolean} true if the row was updated, false if no row has that index.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public boolean update(int rowIndex, Map<String, Object> values) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    int[] updateColumns = new int[values.size()];
+    String[] updateValues = new String[values.size()];
+    this.resolveValues(values, updateColumns, updateValues);
+    long sequence;
+    this.lock.writeLock().lock();
+    try {
+      Integer position = this.slots.get(rowIndex);
+      if (position == null) { return false; }
+      ArrayList<String> row = new ArrayList<>(Arrays.asList(this.frame.getRow(position)));
+      for (int j = 0; j < updateColumns.length; j++) {
+        row.set(updateColumns[j], updateValues[j]);
+      }
+      sequence = this.log.append(LogRecord.update(this.name, position, row));
+      this.putRow(position, row);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return this.sync(sequence);
+  }
+
+  /**
+   * It deletes a row found by its index. The row is replaced by a tombstone, logged as an update, whose
+   * position the next insert takes. Its index is never given again.
+   *
+   * @param rowIndex {@code int} Index of the row.
+   *
+   * @return {@code boolean} true if the row was deleted, false if no row has that index.
+   * */
+  public boolean delete(int rowIndex) {
+    long sequence;
+    this.lock.writeLock().lock();
+    try {
+      Integer position = this.slots.get(rowIndex);
+      if (position == null) { return false; }
+      ArrayList<String> row = new ArrayList<>(Arrays.asList(this.frame.getRow(position)));
+      row.set(0, Integer.toString(-rowIndex));
+      sequence = this.log.append(LogRecord.update(this.name, position, row));
+      this.putRow(position, row);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return this.sync(sequence);
+  }
+
+  /**
+   * It holds the table lock exclusively while a transaction is staged and applied.
+   * */
+  void lockForTransaction() {
+    this.lock.writeLock().lock();
+  }
+
+  void unlockForTransaction() {
+    this.lock.writeLock().unlock();
+  }
+
+  /**
+   * It stages the insert of a row by a transaction, the table lock being held.
+   *
+   * @param row {@code ArrayList<String>} fields to insert, the index is added to it.
+   * @param staged {@code TreeMap<Integer, ArrayList<String>>} Rows staged so far by position.
+   *
+   * @return {@code int} Position of the row.
+   * */
+  int stageInsert(ArrayList<String> row, TreeMap<Integer, ArrayList<String>> staged) {
+    this.lastIndex++;
+    row.add(0, Integer.toString(this.lastIndex));
+    int position = this.tombstones.nextSetBit(0);
+    while (position >= 0 && staged.containsKey(position)) {
+      position = this.tombstones.nextSetBit(position + 1);
+    }
+    if (position < 0) {
+      position = this.frame.size();
+      if (!staged.isEmpty() && staged.lastKey() >= position) {
+        position = staged.lastKey() + 1;
+      }
+    }
+    staged.put(position, row);
+    return position;
+  }
+
+  /**
+   * It stages the update of the first row matching a criteria by a transaction, the table lock being held.
+   * Rows staged before are matched as they will be once the transaction is applied.
+   *
+   * @param findCol {@code Column} Column used to filter.
+   * @param findParam {@code Object} Parameter matched against the fields of the column.
+   * @param updateCol {@code Column} Column of the field updated.
+   * @param updateParam {@code Object} New value of the field.
+   * @param staged {@code TreeMap<Integer, ArrayList<String>>} Rows staged so far by position.
+   *
+   * @return {@code int} Position of the row updated, -1 if no row matched.
+   * */
+  int stageUpdate(Column findCol, Object findParam, Column updateCol, Object updateParam, TreeMap<Integer, ArrayList<String>> staged) {
+    int column = findCol.getNumber();
+    int found = -1;
+    Index index = this.indexes.get(column);
+    if (index != null) {
+      for (int position: index.lookup(findParam)) {
+        if (!staged.containsKey(position) && (found < 0 || position < found)) { found = position; }
+      }
+    } else {
+      RowPredicate predicate = RowPredicate.live(this.tombstones, RowPredicate.equal(findCol.getType(), column + 1, findParam));
+      found = predicate.next(this.frame, 0, this.frame.size());
+      while (found >= 0 && staged.containsKey(found)) {
+        found = predicate.next(this.frame, found + 1, this.frame.size());
+      }
+    }
+    for (Map.Entry<Integer, ArrayList<String>> entry: staged.entrySet()) {
+      if (found >= 0 && entry.getKey() > found) { break; }
+      if (RowPredicate.equal(findCol.getType(), entry.getValue().get(column + 1), findParam)) {
+        found = entry.getKey();
+        break;
+      }
+    }
+    if (found < 0) { return -1; }
+    ArrayList<String> row = staged.containsKey(found)
+            ? new ArrayList<>(staged.get(found))
+            : new ArrayList<>(Arrays.asList(this.frame.getRow(found)));
+    row.set(updateCol.getNumber() + 1, updateParam.toString());
+    staged.put(found, row);
+    return found;
+  }
+
+  /**
+   * It applies the rows staged by a transaction once it is logged, the table lock being held.
+   *
+   * @param staged {@code TreeMap<Integer, ArrayList<String>>} Rows staged by position.
+   * */
+  void applyStaged(TreeMap<Integer, ArrayList<String>> staged) {
+    for (Map.Entry<Integer, ArrayList<String>> entry: staged.entrySet()) {
+      this.putRow(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * It waits for a change to be durable, outside of the table lock so concurrent changes share the same disk write.
+   *
+   * @param sequence {@code long} Sequence number of the change in the write-ahead log.
+   *
+   * @return {@code boolean} true if the change is durable, false if the log couldn't be written.
+   * */
+  private boolean sync(long sequence) {
+    try {
+      this.log.sync(sequence);
+      return true;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
 
-    ArrayList<Object> rowToUpdate = result.get(0);
-    int updateColIndex = updateCol.getNumber();
-    rowToUpdate.set(updateColIndex + 1, updateParam);
-    ArrayList<String> row = new ArrayList<>();
-    for (Object field: rowToUpdate) {
-      row.add(field.toString());
+  /**
+   * It puts a row at a position of the Frame, adding it if the position is past the end,
+   * and keeps the indexes and the positions of the rows up to date. A row whose index is negative is a
+   * tombstone: it is left out of the indexes.
+   *
+   * @param position {@code int} Position of the row.
+   * @param row {@code ArrayList<String>} Full row, index included.
+   * */
+  private void putRow(int position, ArrayList<String> row) {
+    if (position < this.frame.size()) {
+      if (!this.tombstones.get(position)) {
+        for (Index index: this.indexes.values()) {
+          Column col = index.getColumn();
+          index.remove(this.frame.getValue(position, col.getNumber() + 1, col.getType()), position);
+        }
+        this.slots.remove((int) this.frame.getLong(position, 0));
+      }
+      this.frame.replaceLine(position + 1, row);
+    } else {
+      this.frame.addRow(row);
+    }
+    int rowIndex = Integer.parseInt(row.get(0));
+    this.track(position, rowIndex);
+    if (rowIndex < 0) { return; }
+    for (Index index: this.indexes.values()) {
+      Column col = index.getColumn();
+      index.add(Database.string2Object(col.getType(), row.get(col.getNumber() + 1)), position);
+    }
+  }
+
+  /**
+   * It records the position of a row, or of a tombstone, and keeps the next index past every index seen:
+   * rows inserted after the last checkpoint carry indexes the data file doesn't have yet.
+   *
+   * @param position {@code int} Position of the row.
+   * @param rowIndex {@code int} Index of the row, negated for a tombstone.
+   * */
+  private void track(int position, int rowIndex) {
+    this.lastIndex = Math.max(this.lastIndex, Math.abs(rowIndex));
+    if (rowIndex < 0) {
+      this.tombstones.set(position);
+    } else {
+      this.tombstones.clear(position);
+      this.slots.put(rowIndex, position);
     }
-    this.dataFrame.replaceLine((int) rowToUpdate.get(0), row);
-    return true;
   }
 
   /**
-   * It filters a DataFrame based on the criteria passed.
+   * It searches and retrieves the rows whose value in a column falls within a range, ordered by that value.
+   * A sorted index is used when the column has one, otherwise the table is scanned.
+   *
+   * @param column {@code String} Name of the column that will be used to filter.
+   * @param from {@code Object} Lower bound, inclusive.
+   * @param to {@code Object} Upper bound, inclusive.
+   *
+   * @throws ColumnNotFound If the column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of the bounds doesn't match the type on the table.
+   *
+   * @return {@code ArrayList<ArrayList<Object>>} the set of records that match the criteria
+   * */
+  public ArrayList<ArrayList<Object>> findRange(String column, Object from, Object to) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    Column col = this.schema.get(column);
+    if(col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+    if(!Database.checkTypeAffinity(col.getType(), from) || !Database.checkTypeAffinity(col.getType(), to)) { throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type");}
+    this.lock.readLock().lock();
+    try {
+      return this.rangeResults(col, from, to);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * It filters a Frame on a range of values of a column, ordered by that value.
+   *
+   * @param col {@code Column} Column used to filter results.
+   * @param from {@code Object} Lower bound, inclusive.
+   * @param to {@code Object} Upper bound, inclusive.
+   *
+   * @return {@code ArrayList<ArrayList<Object>>} Records that match the criteria.
+   * */
+  @SuppressWarnings("unchecked")
+  private ArrayList<ArrayList<Object>> rangeResults(Column col, Object from, Object to) {
+    ArrayList<ArrayList<Object>> result = new ArrayList<>();
+    Index index = this.indexes.get(col.getNumber());
+    if (index != null && index.isSorted()) {
+      for (int position: index.range(from, to)) {
+        result.add(parseResult(position));
+      }
+      return result;
+    }
+    Comparable<Object> lower = (Comparable<Object>) from;
+    Comparable<Object> upper = (Comparable<Object>) to;
+    for (int position = 0; position < this.frame.size(); position++) {
+      if (this.tombstones.get(position)) { continue; }
+      Object value = this.frame.getValue(position, col.getNumber() + 1, col.getType());
+      if (lower.compareTo(value) <= 0 && upper.compareTo(value) >= 0) {
+        result.add(parseResult(position));
+      }
+    }
+    result.sort((a, b) -> ((Comparable<Object>) a.get(col.getNumber())).compareTo(b.get(col.getNumber())));
+    return result;
+  }
+
+  /**
+   * It filters a Frame based on the criteria passed.
    *
    * @param columnIndex {@code int} Index of the column used to filter results.
    * @param param {@code Object} Parameter that will be used to match the fields in the selected column.
@@ -142,35 +780,484 @@ class Table {
    * */
   private ArrayList<ArrayList<Object>> filterResults(int columnIndex, Object param, boolean stopAtFirst, boolean addIndex) {
     ArrayList<ArrayList<Object>> result = new ArrayList<>();
+    for (int position: this.matchPositions(columnIndex, param, stopAtFirst)) {
+      ArrayList<Object> parsedRow = parseResult(position);
+      if (addIndex) {
+        parsedRow.add(0, this.frame.getValue(position, 0, Database.DATA_TYPES.INTEGER));
+      }
+      result.add(parsedRow);
+    }
+    return result;
+  }
+
+  /**
+   * It finds the positions of the rows matching the criteria passed.
+   * The index of the column is used when there is one, otherwise the table is scanned in parallel.
+   *
+   * @param columnIndex {@code int} Index of the column used to filter results.
+   * @param param {@code Object} Parameter that will be used to match the fields in the selected column.
+   * @param stopAtFirst {@code boolean} Whether to stop at first occurrence.
+   *
+   * @return {@code List<Integer>} Positions of the matching rows, in table order.
+   * */
+  private List<Integer> matchPositions(int columnIndex, Object param, boolean stopAtFirst) {
+    Index index = this.indexes.get(columnIndex);
+    if (index != null) {
+      List<Integer> positions = index.lookup(param);
+      return stopAtFirst && positions.size() > 1 ? positions.subList(0, 1) : positions;
+    }
+    return this.parallelScan(RowPredicate.equal(this.typeList.get(columnIndex), columnIndex + 1, param), stopAtFirst);
+  }
+
+  /**
+   * It checks the columns and the types of the values of a condition against the schema.
+   *
+   * @param condition {@code Condition} Condition to check.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  private void checkCondition(Condition condition) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    if (condition.isComposite()) {
+      for (Condition child: condition.getChildren()) {
+        this.checkCondition(child);
+      }
+      return;
+    }
+    Column col = this.schema.get(condition.getColumn());
+    if(col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+    boolean range = condition.getType() == Condition.TYPES.RANGE;
+    if((!range || condition.getValue() != null) && !Database.checkTypeAffinity(col.getType(), condition.getValue())
+            || range && condition.getTo() != null && !Database.checkTypeAffinity(col.getType(), condition.getTo())) {
+      throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type");
+    }
+  }
+
+  /**
+   * It finds the positions of the rows matching a condition, in order.
+   *
+   * @param condition {@code Condition} Condition already checked.
+   *
+   * @return {@code List<Integer>} Positions of the matching rows.
+   * */
+  private List<Integer> matchPositions(Condition condition) {
+    RowPredicate predicate = RowPredicate.compile(condition, this);
+    List<Integer> candidates = this.indexedCandidates(condition);
+    if (candidates == null) { return this.parallelScan(predicate, false); }
+    ArrayList<Integer> positions = new ArrayList<>();
+    for (int position: candidates) {
+      if (predicate.test(this.frame, position)) { positions.add(position); }
+    }
+    return positions;
+  }
+
+  /**
+   * It scans the whole frame for the rows matching a predicate, splitting the rows into partitions
+   * scanned on the common fork-join pool. The caller must hold the table lock until it returns.
+   *
+   * @param predicate {@code RowPredicate} Predicate compiled from the criteria.
+   * @param stopAtFirst {@code boolean} Whether to stop at the first row, in table order.
+   *
+   * @return {@code List<Integer>} Positions of the matching rows, in table order.
+   * */
+  private List<Integer> parallelScan(RowPredicate predicate, boolean stopAtFirst) {
+    AtomicInteger first = stopAtFirst ? new AtomicInteger(Integer.MAX_VALUE) : null;
+    PositionScan scan = new PositionScan(RowPredicate.live(this.tombstones, predicate), first, 0, this.frame.size());
+    return this.frame.size() <= PARTITION_SIZE ? scan.compute() : ForkJoinPool.commonPool().invoke(scan);
+  }
+
+  /**
+   * It counts the rows matching a condition, scanning the table in parallel.
+   *
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   *
+   * @return {@code long} Number of rows matching.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public long count(Condition where) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    if (where != null) { this.checkCondition(where); }
+    this.lock.readLock().lock();
     try {
-      ArrayList<String[]> dataFrameData = this.dataFrame.getData();
-      for (String[] row: dataFrameData) {
-        if(row[columnIndex + 1].equals(param.toString())) {
-          ArrayList<Object> parsedRow = parseResult(row);
-          if (addIndex) {
-            parsedRow.add(0, Integer.parseInt(row[0]));
+      if (where == null) { return this.frame.size() - this.tombstones.cardinality(); }
+      RowPredicate predicate = RowPredicate.compile(where, this);
+      List<Integer> candidates = this.indexedCandidates(where);
+      if (candidates == null) { return this.aggregate(null, predicate).count; }
+      long count = 0;
+      for (int position: candidates) {
+        if (predicate.test(this.frame, position)) { count++; }
+      }
+      return count;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * It adds up a numeric column over the rows matching a condition, scanning the table in parallel.
+   *
+   * @param column {@code String} Name of the column to add up.
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   *
+   * @return {@code Number} Long for INTEGER and LONG columns, Double for FLOAT and DOUBLE columns.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the column is not numeric or the data type of a value doesn't match the type on the table.
+   * */
+  public Number sum(String column, Condition where) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    Column col = this.schema.get(column);
+    if (col == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+    if (col.getType() != Database.DATA_TYPES.INTEGER && col.getType() != Database.DATA_TYPES.LONG
+            && col.getType() != Database.DATA_TYPES.FLOAT && col.getType() != Database.DATA_TYPES.DOUBLE) {
+      throw new ColumnDataTypeAffinityException("The column you're adding up is not numeric");
+    }
+    if (where != null) { this.checkCondition(where); }
+    RowPredicate predicate = where == null ? null : RowPredicate.compile(where, this);
+    Totals totals;
+    this.lock.readLock().lock();
+    try {
+      List<Integer> candidates = where == null ? null : this.indexedCandidates(where);
+      if (candidates == null) {
+        totals = this.aggregate(col, predicate);
+      } else {
+        totals = new Totals();
+        for (int position: candidates) {
+          if (predicate.test(this.frame, position)) { totals.add(this.frame, position, col); }
+        }
+      }
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    boolean integral = col.getType() == Database.DATA_TYPES.INTEGER || col.getType() == Database.DATA_TYPES.LONG;
+    return integral ? (Number) totals.integral : (Number) totals.floating;
+  }
+
+  /**
+   * @param col {@code Column} Column added up, null to only count.
+   * @param predicate {@code RowPredicate} Predicate the rows match, null for every row left.
+   * */
+  private Totals aggregate(Column col, RowPredicate predicate) {
+    Aggregation aggregation = new Aggregation(col, RowPredicate.live(this.tombstones, predicate), 0, this.frame.size());
+    return this.frame.size() <= PARTITION_SIZE ? aggregation.compute() : ForkJoinPool.commonPool().invoke(aggregation);
+  }
+
+  /**
+   * It narrows the rows a condition can match with an index: the condition, or one of the conditions all
+   * required with it, must be an equality on an indexed column or a bounded range on a sorted index.
+   *
+   * @param condition {@code Condition} Condition already checked.
+   *
+   * @return {@code List<Integer>} Positions of the candidate rows in table order, null if the table must be scanned.
+   * */
+  private List<Integer> indexedCandidates(Condition condition) {
+    if (condition.getType() == Condition.TYPES.OR) { return null; }
+    if (condition.getType() == Condition.TYPES.AND) {
+      for (Condition child: condition.getChildren()) {
+        List<Integer> candidates = this.indexedCandidates(child);
+        if (candidates != null) { return candidates; }
+      }
+      return null;
+    }
+    Index index = this.indexes.get(this.schema.get(condition.getColumn()).getNumber());
+    if (index == null) { return null; }
+    if (condition.getType() == Condition.TYPES.EQ) {
+      return new ArrayList<>(index.lookup(condition.getValue()));
+    }
+    if (!index.isSorted() || condition.getValue() == null || condition.getTo() == null) { return null; }
+    List<Integer> candidates = index.range(condition.getValue(), condition.getTo());
+    candidates.sort(null);
+    return candidates;
+  }
+
+  /**
+   * It starts a lazy scan of the rows matching a condition, in table order.
+   * The table is read in chunks: the lock is only held while a chunk is read, so a scan left open doesn't
+   * block writers, and only the rows matching of a chunk are kept.
+   *
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   * @param columns {@code List<String>} Names of the columns to read, null for every column.
+   * @param limit {@code long} Most rows returned.
+   *
+   * @return {@code Iterator<ArrayList<Object>>} Matching rows, holding the fields of the columns requested.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public Iterator<ArrayList<Object>> scan(Condition where, List<String> columns, long limit) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    if (where != null) { this.checkCondition(where); }
+    Column[] selected;
+    if (columns == null) {
+      selected = new Column[this.columnNumber];
+      for (int i = 0; i < this.columnNumber; i++) {
+        selected[i] = new Column(this.typeList.get(i), i);
+      }
+    } else {
+      selected = new Column[columns.size()];
+      for (int i = 0; i < selected.length; i++) {
+        selected[i] = this.schema.get(columns.get(i));
+        if (selected[i] == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+      }
+    }
+    List<Integer> candidates = null;
+    if (where != null) {
+      this.lock.readLock().lock();
+      try {
+        candidates = this.indexedCandidates(where);
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+    return new Scan(RowPredicate.live(this.tombstones, where == null ? null : RowPredicate.compile(where, this)), selected, candidates, limit);
+  }
+
+  /**
+   * A range of rows scanned by a fork-join task. Ranges larger than {@link #PARTITION_SIZE} are split in
+   * two halves, scanned concurrently, whose results are merged in table order.
+   * */
+  private abstract class Partition<T> extends RecursiveTask<T> {
+    protected final int from;
+    protected final int to;
+
+    Partition(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected T compute() {
+      if (this.to - this.from <= PARTITION_SIZE) { return this.scan(); }
+      int middle = (this.from + this.to) >>> 1;
+      Partition<T> right = this.split(middle, this.to);
+      right.fork();
+      T left = this.split(this.from, middle).compute();
+      return this.merge(left, right.join());
+    }
+
+    abstract T scan();
+
+    abstract Partition<T> split(int from, int to);
+
+    abstract T merge(T left, T right);
+  }
+
+  /**
+   * The positions of the rows of a range matching a predicate.
+   * When only the first row is wanted, the lowest position found is shared between the partitions: the
+   * partitions after it give up at their next check and the ones not started yet are skipped.
+   * */
+  private final class PositionScan extends Partition<List<Integer>> {
+    private final RowPredicate predicate;
+    private final AtomicInteger first;
+
+    PositionScan(RowPredicate predicate, AtomicInteger first, int from, int to) {
+      super(from, to);
+      this.predicate = predicate;
+      this.first = first;
+    }
+
+    @Override
+    List<Integer> scan() {
+      ArrayList<Integer> positions = new ArrayList<>();
+      for (int start = this.from; start < this.to; start += CANCEL_CHECK_ROWS) {
+        if (this.first != null && start >= this.first.get()) { break; }
+        int end = Math.min(start + CANCEL_CHECK_ROWS, this.to);
+        int position = this.predicate.next(Table.this.frame, start, end);
+        while (position >= 0) {
+          positions.add(position);
+          if (this.first != null) {
+            this.first.accumulateAndGet(position, Math::min);
+            return positions;
           }
-          result.add(parsedRow);
-          if (stopAtFirst) { break; }
+          position = this.predicate.next(Table.this.frame, position + 1, end);
         }
       }
-    } catch (IOException e) {
-      e.printStackTrace();
+      return positions;
+    }
+
+    @Override
+    Partition<List<Integer>> split(int from, int to) {
+      return new PositionScan(this.predicate, this.first, from, to);
+    }
+
+    @Override
+    List<Integer> merge(List<Integer> left, List<Integer> right) {
+      if (this.first != null) { return left.isEmpty() ? right : left; }
+      left.addAll(right);
+      return left;
     }
-    return result;
   }
 
   /**
-   * It will parse a row of Strings into the corresponding Objects.
+   * The count and the sum of a column over the rows of a range matching a predicate.
+   * */
+  private final class Aggregation extends Partition<Totals> {
+    private final Column col;
+    private final RowPredicate predicate;
+
+    Aggregation(Column col, RowPredicate predicate, int from, int to) {
+      super(from, to);
+      this.col = col;
+      this.predicate = predicate;
+    }
+
+    @Override
+    Totals scan() {
+      Totals totals = new Totals();
+      for (int position = this.from; position < this.to; position++) {
+        if (!this.predicate.test(Table.this.frame, position)) { continue; }
+        if (this.col == null) {
+          totals.count++;
+        } else {
+          totals.add(Table.this.frame, position, this.col);
+        }
+      }
+      return totals;
+    }
+
+    @Override
+    Partition<Totals> split(int from, int to) {
+      return new Aggregation(this.col, this.predicate, from, to);
+    }
+
+    @Override
+    Totals merge(Totals left, Totals right) {
+      left.count += right.count;
+      left.integral += right.integral;
+      left.floating += right.floating;
+      return left;
+    }
+  }
+
+  private static final class Totals {
+    private long count = 0;
+    private long integral = 0;
+    private double floating = 0;
+
+    private void add(Frame frame, int position, Column col) {
+      this.count++;
+      if (col.getType() == Database.DATA_TYPES.INTEGER || col.getType() == Database.DATA_TYPES.LONG) {
+        this.integral += frame.getLong(position, col.getNumber() + 1);
+      } else {
+        this.floating += frame.getDouble(position, col.getNumber() + 1);
+      }
+    }
+  }
+
+  /**
+   * It visits the rows matching a condition, in table order, with one {@link RowCursor} moved from row to row.
+   * Rows are read in chunks like {@link #scan(Condition, List, long)}; the visitor runs while the lock of its
+   * chunk is held, so it must not change the table.
+   *
+   * @param where {@code Condition} Condition the rows match, null for every row.
+   * @param limit {@code long} Most rows visited.
+   * @param visitor {@code Consumer<RowCursor>} Called on every row.
+   *
+   * @return {@code long} Number of rows visited.
+   *
+   * @throws ColumnNotFound If a column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of a value doesn't match the type on the table.
+   * */
+  public long visit(Condition where, long limit, Consumer<RowCursor> visitor) throws ColumnNotFound, ColumnDataTypeAffinityException {
+    if (where != null) { this.checkCondition(where); }
+    RowPredicate predicate = RowPredicate.live(this.tombstones, where == null ? null : RowPredicate.compile(where, this));
+    RowCursor cursor = new RowCursor(this);
+    List<Integer> candidates = null;
+    long visited = 0;
+    int next = 0;
+    while (visited < limit) {
+      this.lock.readLock().lock();
+      try {
+        if (next == 0 && where != null) { candidates = this.indexedCandidates(where); }
+        int end = candidates != null ? candidates.size() : this.frame.size();
+        if (next >= end) { break; }
+        end = Math.min(end, next + Scan.CHUNK_SIZE);
+        for (; next < end && visited < limit; next++) {
+          int position = candidates != null ? candidates.get(next) : next;
+          if (!predicate.test(this.frame, position)) { continue; }
+          cursor.moveTo(this.frame, position);
+          visitor.accept(cursor);
+          visited++;
+        }
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+    return visited;
+  }
+
+  /**
+   * The lazy scan of {@link #scan(Condition, List, long)}.
+   * */
+  private final class Scan implements Iterator<ArrayList<Object>> {
+    private static final int CHUNK_SIZE = 1024;
+
+    private final RowPredicate predicate;
+    private final Column[] selected;
+    private final List<Integer> candidates;
+    private final ArrayDeque<ArrayList<Object>> buffered = new ArrayDeque<>();
+    private int cursor = 0;
+    private long remaining;
+
+    private Scan(RowPredicate predicate, Column[] selected, List<Integer> candidates, long limit) {
+      this.predicate = predicate;
+      this.selected = selected;
+      this.candidates = candidates;
+      this.remaining = limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (this.buffered.isEmpty() && this.remaining > 0 && this.fill()) { }
+      return !this.buffered.isEmpty();
+    }
+
+    @Override
+    public ArrayList<Object> next() {
+      if (!this.hasNext()) { throw new NoSuchElementException(); }
+      return this.buffered.poll();
+    }
+
+    /**
+     * It reads the next chunk of rows.
+     *
+     * @return {@code boolean} false once every row was read.
+     * */
+    private boolean fill() {
+      lock.readLock().lock();
+      try {
+        int end = this.candidates != null ? this.candidates.size() : frame.size();
+        if (this.cursor >= end) { return false; }
+        end = Math.min(end, this.cursor + CHUNK_SIZE);
+        while (this.cursor < end && this.remaining > 0) {
+          int position = this.candidates != null ? this.candidates.get(this.cursor) : this.cursor;
+          this.cursor++;
+          if (!this.predicate.test(frame, position)) { continue; }
+          ArrayList<Object> row = new ArrayList<>(this.selected.length);
+          for (Column col: this.selected) {
+            row.add(frame.getValue(position, col.getNumber() + 1, col.getType()));
+          }
+          this.buffered.add(row);
+          this.remaining--;
+        }
+        return true;
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * It will read a row of the Frame into the corresponding Objects.
    *
-   * @param row {@code String[]} row of fields.
+   * @param position {@code int} Position of the row.
    *
    * @return {@code ArrayList<Object>} List of parsed fields.
    * */
-  private ArrayList<Object> parseResult(String[] row){
+  private ArrayList<Object> parseResult(int position){
     ArrayList<Object> result = new ArrayList<>();
     for (int i = 0; i < this.typeList.size(); i++) {
-      result.add(Database.string2Object(this.typeList.get(i), row[i+1]));
+      result.add(this.frame.getValue(position, i + 1, this.typeList.get(i)));
     }
     return result;
   }
@@ -179,24 +1266,31 @@ class Table {
    * It loads the config on the instance.
    *
    * @param configPath {@code String} Path to config file for this table.
+   *
+   * @throws IOException If the config couldn't be read.
    * */
-  private void loadConfig(String configPath) {
+  private void loadConfig(String configPath) throws IOException {
     Path configFilePath = Paths.get(configPath);
     AtomicInteger i = new AtomicInteger();
     i.set(0);
-    try {
-      this.schema = new HashMap<>();
-      this.typeList = new ArrayList<>();
-      Files.lines(configFilePath).forEach(config -> {
+    this.schema = new HashMap<>();
+    this.columnNames = new ArrayList<>();
+    this.typeList = new ArrayList<>();
+    try (Stream<String> lines = Files.lines(configFilePath)) {
+      lines.forEach(config -> {
         String[] configArray = config.split("=");
+        if (configArray[0].equals(Database.FORMAT_CONFIG_KEY)) {
+          this.format = Database.STORAGE_FORMATS.valueOf(configArray[1]);
+          return;
+        }
         String columnName = configArray[0];
         Database.DATA_TYPES type = Database.DATA_TYPES.valueOf(configArray[1]);
         this.schema.put(columnName, new Column(type, i.get()));
+        this.columnNames.add(columnName);
         this.typeList.add(type);
         i.getAndIncrement();
       });
-    } catch (IOException e) {
-      e.printStackTrace();
+      this.columnNumber = this.typeList.size();
     }
   }
 }
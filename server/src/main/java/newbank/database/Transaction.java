@@ -0,0 +1,113 @@
+package newbank.database;
+
+import newbank.database.exceptions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The Transaction class groups inserts and updates that are applied together or not at all.
+ *
+ * Changes are only checked when they are added and are kept in memory until {@link #commit()}. The commit
+ * writes them to the write-ahead log as a single record, forced to disk with one write, and applies them
+ * while holding the locks of every table involved, so readers never see part of a transaction.
+ * It is created by {@link Database#beginTransaction()} and is used by one thread.
+ * */
+public class Transaction {
+  /**
+   * One change of the transaction: an insert when {@code fields} is set, an update otherwise.
+   * */
+  static final class Operation {
+    final Table table;
+    final ArrayList<String> fields;
+    final Column findColumn;
+    final Object findParam;
+    final Column updateColumn;
+    final Object updateParam;
+
+    private Operation(Table table, ArrayList<String> fields, Column findColumn, Object findParam, Column updateColumn, Object updateParam) {
+      this.table = table;
+      this.fields = fields;
+      this.findColumn = findColumn;
+      this.findParam = findParam;
+      this.updateColumn = updateColumn;
+      this.updateParam = updateParam;
+    }
+  }
+
+  private final Database database;
+  private final ArrayList<Operation> operations = new ArrayList<>();
+  private boolean open = true;
+
+  Transaction(Database database) {
+    this.database = database;
+  }
+
+  /**
+   * It adds the insert of a row to the transaction.
+   *
+   * @param table {@code String} Table name.
+   * @param fields {@code ArrayList<String>} Fields to insert.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws InvalidColumnNumberException If the amount of fields and the columns number don't match.
+   * */
+  public void insert(String table, ArrayList<String> fields) throws TableNotFoundException, InvalidColumnNumberException {
+    this.checkOpen();
+    Table target = this.database.getTable(table);
+    if (target.getColumnNumber() != fields.size()) {
+      throw new InvalidColumnNumberException("The number fields doesn't match the number of columns of the table");
+    }
+    this.operations.add(new Operation(target, new ArrayList<>(fields), null, null, null, null));
+  }
+
+  /**
+   * It adds the update of the first row matching a criteria to the transaction.
+   * Rows inserted or updated earlier in the transaction are matched as they will be once it is applied.
+   *
+   * @param table {@code String} Name of the Table to search.
+   * @param findColumn {@code String} Name of the column that will be used to filter.
+   * @param findParam {@code Object} Parameter that will be used to match the fields in the selected column.
+   * @param updateColumn {@code String} Name of the column where the field that will be updated resides.
+   * @param updateParam {@code Object} Parameter that will be replace the older parameter.
+   *
+   * @throws TableNotFoundException If the table doesn't exist.
+   * @throws ColumnNotFound If the column doesn't exist.
+   * @throws ColumnDataTypeAffinityException if the data type of param doesn't match the type on the table.
+   * */
+  public void update(String table, String findColumn, Object findParam, String updateColumn, Object updateParam) throws TableNotFoundException, ColumnNotFound, ColumnDataTypeAffinityException {
+    this.checkOpen();
+    Table target = this.database.getTable(table);
+    Column findCol = target.getColumn(findColumn);
+    Column updateCol = target.getColumn(updateColumn);
+    if(findCol == null || updateCol == null) { throw new ColumnNotFound("The column you're querying doesn't exist"); }
+    if( !Database.checkTypeAffinity(findCol.getType(), findParam) || !Database.checkTypeAffinity(updateCol.getType(), updateParam) ) { throw new ColumnDataTypeAffinityException("The parameter you're passing doesn't match the column type"); }
+    this.operations.add(new Operation(target, null, findCol, findParam, updateCol, updateParam));
+  }
+
+  /**
+   * It applies every change of the transaction at once. Updates matching no row are skipped.
+   *
+   * @return {@code int} Number of rows inserted or updated.
+   *
+   * @throws IOException If the write-ahead log couldn't be written, in which case nothing is applied.
+   * */
+  public int commit() throws IOException {
+    this.checkOpen();
+    this.open = false;
+    return this.database.commit(this.operations);
+  }
+
+  /**
+   * It drops the changes of the transaction.
+   * */
+  public void rollback() {
+    this.checkOpen();
+    this.open = false;
+    this.operations.clear();
+  }
+
+  private void checkOpen() {
+    if (!this.open) { throw new IllegalStateException("The transaction is already committed or rolled back"); }
+  }
+}
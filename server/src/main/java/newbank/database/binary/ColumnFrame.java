@@ -0,0 +1,189 @@
+package newbank.database.binary;
+
+import newbank.database.Database;
+import newbank.database.Frame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * The ColumnFrame class is the model of a table stored in the binary columnar format.
+ *
+ * Every column is held in memory as a primitive {@code ColumnVector}, the index of the rows being the column 0.
+ * The file holds a header (magic number, version, row count and column types) followed by the columns
+ * one after the other, so it is loaded without parsing any text.
+ * */
+public class ColumnFrame implements Frame {
+  private static final int MAGIC = 0x4E42434F;
+  private static final int VERSION = 1;
+
+  private final String path;
+  private final Database.DATA_TYPES[] types;
+  private final ColumnVector[] columns;
+  private int size = 0;
+  private boolean dirty = false;
+
+  /**
+   * Instantiates a ColumnFrame, loading the file if it exists or creating it otherwise.
+   *
+   * @param path {@code String} Path of the binary file.
+   * @param columnTypes {@code ArrayList<DATA_TYPES>} Data type of the columns, the index excluded.
+   * */
+  public ColumnFrame(String path, ArrayList<Database.DATA_TYPES> columnTypes) {
+    this.path = path;
+    this.types = new Database.DATA_TYPES[columnTypes.size() + 1];
+    this.types[0] = Database.DATA_TYPES.INTEGER;
+    for (int i = 0; i < columnTypes.size(); i++) {
+      this.types[i + 1] = columnTypes.get(i);
+    }
+    this.columns = new ColumnVector[this.types.length];
+    for (int i = 0; i < this.types.length; i++) {
+      this.columns[i] = ColumnVector.of(this.types[i]);
+    }
+    try {
+      if (new File(path).exists()) {
+        this.load();
+      } else {
+        this.dirty = true;
+        this.flush();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public String[] getRow(int position) {
+    String[] row = new String[this.columns.length];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = this.columns[i].getField(position);
+    }
+    return row;
+  }
+
+  @Override
+  public Object getValue(int position, int column, Database.DATA_TYPES type) {
+    return this.columns[column].getValue(position);
+  }
+
+  @Override
+  public String getField(int position, int column) {
+    return this.columns[column].getField(position);
+  }
+
+  @Override
+  public long getLong(int position, int column) {
+    return this.columns[column].getLong(position);
+  }
+
+  @Override
+  public double getDouble(int position, int column) {
+    return this.columns[column].getDouble(position);
+  }
+
+  @Override
+  public boolean getBoolean(int position, int column) {
+    return this.columns[column].getBoolean(position);
+  }
+
+  @Override
+  public char getChar(int position, int column) {
+    return this.columns[column].getChar(position);
+  }
+
+  @Override
+  public int nextMatch(int column, Object value, int from, int to) {
+    return this.columns[column].nextMatch(value, from, to);
+  }
+
+  @Override
+  public boolean addRow(ArrayList<String> fields) {
+    this.setRow(this.size, fields);
+    this.size++;
+    return true;
+  }
+
+  @Override
+  public boolean replaceLine(int rowNumber, ArrayList<String> fields) {
+    if (rowNumber < 1 || rowNumber > this.size) { return false; }
+    this.setRow(rowNumber - 1, fields);
+    return true;
+  }
+
+  /**
+   * Writes the whole frame to a temporary file which atomically replaces the table file.
+   *
+   * @throws IOException If the file couldn't be written.
+   * */
+  @Override
+  public void flush() throws IOException {
+    if (!this.dirty) { return; }
+    File tmp = new File(this.path + ".tmp");
+    try (FileOutputStream file = new FileOutputStream(tmp);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(this.size);
+      out.writeInt(this.types.length);
+      for (Database.DATA_TYPES type: this.types) {
+        out.writeByte(type.ordinal());
+      }
+      for (ColumnVector column: this.columns) {
+        column.write(out);
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(tmp.toPath(), Paths.get(this.path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.dirty = false;
+  }
+
+  private void setRow(int position, ArrayList<String> fields) {
+    for (int i = 0; i < this.columns.length; i++) {
+      this.columns[i].set(position, fields.get(i));
+    }
+    this.dirty = true;
+  }
+
+  /**
+   * Reads the binary file and checks it matches the schema of the table.
+   *
+   * @throws IOException If the file couldn't be read or doesn't match the schema.
+   * */
+  private void load() throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(String.format("'%s' isn't a binary table file", this.path));
+      }
+      int rows = in.readInt();
+      int columnNumber = in.readInt();
+      if (columnNumber != this.types.length) {
+        throw new IOException(String.format("'%s' doesn't match the table config", this.path));
+      }
+      for (Database.DATA_TYPES type: this.types) {
+        if (in.readByte() != type.ordinal()) {
+          throw new IOException(String.format("'%s' doesn't match the table config", this.path));
+        }
+      }
+      for (ColumnVector column: this.columns) {
+        column.read(in, rows);
+      }
+      this.size = rows;
+    }
+  }
+}
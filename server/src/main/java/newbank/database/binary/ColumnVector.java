@@ -0,0 +1,362 @@
+package newbank.database.binary;
+
+import newbank.database.Database;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The ColumnVector class holds the values of one column of a {@code ColumnFrame} in a primitive array.
+ *
+ * Fields are parsed once when they are written and compared as primitives when the column is scanned.
+ * Strings are stored as codes into a dictionary, so they are compared as ints as well.
+ * */
+abstract class ColumnVector {
+  private static final int INITIAL_CAPACITY = 16;
+
+  protected int size = 0;
+
+  /**
+   * It instantiates an empty vector for a data type.
+   *
+   * @param type {@code DATA_TYPES} Data type of the column.
+   *
+   * @return {@code ColumnVector} the vector.
+   * */
+  static ColumnVector of(Database.DATA_TYPES type) {
+    switch (type) {
+      case STRING:
+        return new StringVector();
+      case CHAR:
+        return new CharVector();
+      case DOUBLE:
+        return new DoubleVector();
+      case FLOAT:
+        return new FloatVector();
+      case INTEGER:
+        return new IntVector();
+      case LONG:
+        return new LongVector();
+      default: // BOOLEAN
+        return new BooleanVector();
+    }
+  }
+
+  /**
+   * Parses and stores a field, appending it when the position is the size of the vector.
+   *
+   * @param position {@code int} Position of the row.
+   * @param field {@code String} Field as text.
+   * */
+  abstract void set(int position, String field);
+
+  abstract String getField(int position);
+
+  abstract Object getValue(int position);
+
+  // The typed getters read the primitive array of their type; the other vectors parse their field.
+  long getLong(int position) { return Long.parseLong(this.getField(position)); }
+
+  double getDouble(int position) { return Double.parseDouble(this.getField(position)); }
+
+  boolean getBoolean(int position) { return Boolean.parseBoolean(this.getField(position)); }
+
+  char getChar(int position) { return this.getField(position).charAt(0); }
+
+  /**
+   * Finds the next position holding a value.
+   *
+   * @param value {@code Object} Value to match, of the type of the column.
+   * @param from {@code int} First position to check.
+   * @param to {@code int} Position after the last one to check.
+   *
+   * @return {@code int} Position found, -1 if there is none.
+   * */
+  abstract int nextMatch(Object value, int from, int to);
+
+  abstract void write(DataOutputStream out) throws IOException;
+
+  abstract void read(DataInputStream in, int rows) throws IOException;
+
+  protected static int grow(int capacity, int needed) {
+    return Math.max(needed, Math.max(INITIAL_CAPACITY, capacity * 2));
+  }
+
+  static final class IntVector extends ColumnVector {
+    private int[] values = new int[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = Integer.parseInt(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return Integer.toString(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    long getLong(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      int match = (Integer) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeInt(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new int[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readInt(); }
+      size = rows;
+    }
+  }
+
+  static final class LongVector extends ColumnVector {
+    private long[] values = new long[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = Long.parseLong(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return Long.toString(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    long getLong(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      long match = (Long) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeLong(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new long[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readLong(); }
+      size = rows;
+    }
+  }
+
+  static final class DoubleVector extends ColumnVector {
+    private double[] values = new double[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = Double.parseDouble(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return Double.toString(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    double getDouble(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      double match = (Double) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeDouble(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new double[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readDouble(); }
+      size = rows;
+    }
+  }
+
+  static final class FloatVector extends ColumnVector {
+    private float[] values = new float[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = Float.parseFloat(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return Float.toString(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    double getDouble(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      float match = (Float) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeFloat(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new float[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readFloat(); }
+      size = rows;
+    }
+  }
+
+  static final class BooleanVector extends ColumnVector {
+    private boolean[] values = new boolean[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = Boolean.parseBoolean(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return Boolean.toString(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    boolean getBoolean(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      boolean match = (Boolean) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeBoolean(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new boolean[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readBoolean(); }
+      size = rows;
+    }
+  }
+
+  static final class CharVector extends ColumnVector {
+    private char[] values = new char[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = field.charAt(0);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return String.valueOf(values[position]); }
+
+    Object getValue(int position) { return values[position]; }
+
+    char getChar(int position) { return values[position]; }
+
+    int nextMatch(Object value, int from, int to) {
+      char match = (Character) value;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      for (int i = 0; i < size; i++) { out.writeChar(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      values = new char[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readChar(); }
+      size = rows;
+    }
+  }
+
+  /**
+   * Strings are stored once in a dictionary and the rows hold the code of their string.
+   * On disk the dictionary is an offsets table into a block of UTF-8 bytes, followed by the codes.
+   * */
+  static final class StringVector extends ColumnVector {
+    private final ArrayList<String> dictionary = new ArrayList<>();
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private int[] values = new int[0];
+
+    void set(int position, String field) {
+      if (position >= values.length) { values = Arrays.copyOf(values, grow(values.length, position + 1)); }
+      values[position] = this.encode(field);
+      size = Math.max(size, position + 1);
+    }
+
+    String getField(int position) { return dictionary.get(values[position]); }
+
+    Object getValue(int position) { return dictionary.get(values[position]); }
+
+    int nextMatch(Object value, int from, int to) {
+      Integer code = codes.get(value);
+      if (code == null) { return -1; }
+      int match = code;
+      for (int i = from, end = Math.min(to, size); i < end; i++) {
+        if (values[i] == match) { return i; }
+      }
+      return -1;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      byte[][] encoded = new byte[dictionary.size()][];
+      int offset = 0;
+      out.writeInt(dictionary.size());
+      for (int i = 0; i < encoded.length; i++) {
+        encoded[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(offset);
+        offset += encoded[i].length;
+      }
+      out.writeInt(offset);
+      for (byte[] bytes: encoded) { out.write(bytes); }
+      for (int i = 0; i < size; i++) { out.writeInt(values[i]); }
+    }
+
+    void read(DataInputStream in, int rows) throws IOException {
+      int[] offsets = new int[in.readInt() + 1];
+      for (int i = 0; i < offsets.length; i++) { offsets[i] = in.readInt(); }
+      byte[] block = new byte[offsets[offsets.length - 1]];
+      in.readFully(block);
+      dictionary.clear();
+      codes.clear();
+      for (int i = 0; i < offsets.length - 1; i++) {
+        this.encode(new String(block, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+      }
+      values = new int[rows];
+      for (int i = 0; i < rows; i++) { values[i] = in.readInt(); }
+      size = rows;
+    }
+
+    private int encode(String field) {
+      Integer code = codes.get(field);
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(field);
+        codes.put(field, code);
+      }
+      return code;
+    }
+  }
+}
@@ -1,27 +1,57 @@
 package newbank.database.csv;
 
+import newbank.database.Database;
+import newbank.database.Frame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 /**
  * The DataFrame class encapsulates the logic of the model of the database package.
  *
  * It serves as interface of the CSV files and offers functionality for the table class to interact with.
  * It does all the direct writing and reading from the file system.
+ *
+ * The rows are kept resident in memory: the CSV is read once when the DataFrame is loaded and every
+ * read is served from memory afterwards. Appends and updates only change the memory; they are made
+ * durable by the write-ahead log of the database and written to the CSV when {@link #flush()} is called
+ * at a checkpoint.
  * */
-public class DataFrame {
+public class DataFrame implements Frame {
+  private static final int IMAGE_VERSION = 2;
+  private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
   private String path;
+  private String[] header;
+  private final ArrayList<String[]> rows = new ArrayList<>();
+  private int persistedRows = 0;
+  private boolean rewrite = false;
 
   /**
-   * Instantiates a DataFrame class from an existing CSV
+   * Instantiates a DataFrame class from an existing CSV and loads its rows in memory.
    *
    * @param path {@code String} Path where the csv resides
    * */
-  public DataFrame(String path) { this.path = path; }
+  public DataFrame(String path) {
+    this.path = path;
+    this.load();
+  }
 
   /**
    * Instantiates a DataFrame class and creates a CSV.
@@ -34,6 +64,102 @@ public class DataFrame {
     this.init(fields);
   }
 
+  private DataFrame(String path, String[] header) {
+    this.path = path;
+    this.header = header;
+  }
+
+  /**
+   * Restores a DataFrame from an image written by {@link #writeImage(Path)}, without parsing its CSV.
+   *
+   * @param path {@code String} Path where the csv resides
+   * @param image {@code Path} Image of the rows.
+   *
+   * @return {@code DataFrame} the DataFrame, null if there is no image or the CSV changed since it was written.
+   * */
+  public static DataFrame restore(String path, Path image) {
+    if (!Files.exists(image)) { return null; }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(image)))) {
+      Path csv = Paths.get(path);
+      if (in.readInt() != IMAGE_VERSION || in.readLong() != Files.size(csv) || in.readLong() != checksum(csv)) {
+        return null;
+      }
+      DataFrame frame = new DataFrame(path, readFields(in));
+      int size = in.readInt();
+      frame.rows.ensureCapacity(size);
+      for (int i = 0; i < size; i++) {
+        frame.rows.add(readFields(in));
+      }
+      frame.persistedRows = size;
+      return frame;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Flushes the rows and writes them to an image, which is restored faster than the CSV is parsed.
+   * The image records the length and the CRC32 of the CSV and is ignored once the CSV changes, even when
+   * a row was rewritten with the same length, e.g. a balance going from 1000 to 1001, or the CSV was
+   * copied back with its old modification time. Checking the CRC32 reads the CSV but doesn't parse it.
+   *
+   * @param image {@code Path} File to write.
+   *
+   * @throws IOException If the CSV or the image couldn't be written.
+   * */
+  public void writeImage(Path image) throws IOException {
+    this.flush();
+    Path csv = Paths.get(this.path);
+    Path tmpPath = Paths.get(image + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+      out.writeInt(IMAGE_VERSION);
+      out.writeLong(Files.size(csv));
+      out.writeLong(checksum(csv));
+      writeFields(out, this.header);
+      out.writeInt(this.rows.size());
+      for (String[] row: this.rows) {
+        writeFields(out, row);
+      }
+    }
+    Files.move(tmpPath, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * @param file {@code Path} File to read.
+   *
+   * @return {@code long} CRC32 of the content of the file.
+   *
+   * @throws IOException If the file couldn't be read.
+   * */
+  private static long checksum(Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.clear();
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static void writeFields(DataOutputStream out, String[] fields) throws IOException {
+    out.writeShort(fields.length);
+    for (String field: fields) {
+      out.writeUTF(field);
+    }
+  }
+
+  private static String[] readFields(DataInputStream in) throws IOException {
+    String[] fields = new String[in.readUnsignedShort()];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = in.readUTF();
+    }
+    return fields;
+  }
+
   /**
    * Creates a CSV file and insert the header column
    *
@@ -44,6 +170,7 @@ public class DataFrame {
   private boolean init(ArrayList<String> fields) {
     String header = "index, ";
     header += this.buildLine(fields, true);
+    this.header = header.trim().split(", ");
     try {
       Files.createFile(Paths.get(this.path));
       Files.write(Paths.get(this.path), header.getBytes());
@@ -55,54 +182,185 @@ public class DataFrame {
   }
 
   /**
-   * Adds a row into the CSV.
-   *
-   * @param fields {@code ArrayList<String>} List column names
+   * Reads the CSV file once and keeps its rows in memory.
+   * A last line left incomplete by a crash during a checkpoint is dropped, the write-ahead log holds it.
    *
-   * @return {@code boolean} true if the row was added successfully, else false.
+   * @return {@code boolean} true if the file was loaded successfully, else false.
    * */
-  public boolean addRow(ArrayList<String> fields) {
-    String row = this.buildLine(fields, true);
+  private boolean load() {
+    this.rows.clear();
     try {
-      Files.write(Paths.get(this.path), row.getBytes(), StandardOpenOption.APPEND);
+      this.dropIncompleteLine();
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+    try (Stream<String> lines = Files.lines(Paths.get(this.path))) {
+      lines.forEach(line -> {
+        if (this.header == null) {
+          this.header = line.split(", ");
+        } else if (!line.isEmpty()) {
+          this.rows.add(line.split(", "));
+        }
+      });
+      this.persistedRows = this.rows.size();
       return true;
-    }catch (IOException e) {
+    } catch (IOException e) {
+      e.printStackTrace();
       return false;
     }
   }
 
+  @Override
+  public int size() {
+    return this.rows.size();
+  }
+
+  @Override
+  public String[] getRow(int position) {
+    return this.rows.get(position);
+  }
+
+  @Override
+  public String getField(int position, int column) {
+    return this.rows.get(position)[column];
+  }
+
+  @Override
+  public Object getValue(int position, int column, Database.DATA_TYPES type) {
+    return Database.string2Object(type, this.rows.get(position)[column]);
+  }
+
+  /**
+   * Finds the next row whose field in a column reads as the value passed.
+   *
+   * @param column {@code int} Column of the field.
+   * @param value {@code Object} Value to match, compared through its text.
+   * @param from {@code int} First position to check.
+   * @param to {@code int} Position after the last one to check.
+   *
+   * @return {@code int} Position of the matching row, -1 if there is none.
+   * */
+  @Override
+  public int nextMatch(int column, Object value, int from, int to) {
+    String text = value.toString();
+    int end = Math.min(to, this.rows.size());
+    for (int position = from; position < end; position++) {
+      if (this.rows.get(position)[column].equals(text)) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
   /**
-   * Updates a row on a CSV file.
+   * Adds a row into the Data Frame.
    *
-   * @param rowNumber {@code int} row to update
+   * @param fields {@code ArrayList<String>} List column names
+   *
+   * @return {@code boolean} true if the row was added successfully, else false.
+   * */
+  @Override
+  public boolean addRow(ArrayList<String> fields) {
+    this.rows.add(fields.toArray(new String[0]));
+    return true;
+  }
+
+  /**
+   * Updates a row on the Data Frame.
+   *
+   * @param rowNumber {@code int} row to update, the header being the line 0.
    * @param fields {@code ArrayList<String>} List column names
    *
    * @return {@code boolean} true if the row was updated successfully, else false.
    * */
+  @Override
   public boolean replaceLine(int rowNumber, ArrayList<String> fields) {
-    String row = this.buildLine(fields, false);
-    try {
-      ArrayList<String> fileContent = new ArrayList<>(Files.readAllLines(Paths.get(this.path)));
-      fileContent.set(rowNumber, row);
-      Files.write(Paths.get(this.path), fileContent);
-      return true;
-    }catch (IOException e) {
-      return false;
+    if (rowNumber < 1 || rowNumber > this.rows.size()) { return false; }
+    this.rows.set(rowNumber - 1, fields.toArray(new String[0]));
+    if (rowNumber <= this.persistedRows) {
+      this.rewrite = true;
     }
+    return true;
   }
 
   /**
-   * Returns the Data Frame from the CSV file.
+   * Returns the Data Frame held in memory, header excluded.
+   *
+   * @return {@code List<String[]>} read-only view of the rows.
+   * */
+  public List<String[]> getData() {
+    return Collections.unmodifiableList(this.rows);
+  }
+
+  /**
+   * Writes the changes held in memory to the CSV file.
+   * Rows added since the last flush are appended. If a row already in the file was updated the
+   * whole file is written to a temporary file which atomically replaces the CSV.
+   *
+   * @throws IOException If the file couldn't be written.
+   * */
+  @Override
+  public void flush() throws IOException {
+    if (this.rewrite) {
+      Path CSVPath = Paths.get(this.path);
+      Path tmpPath = Paths.get(this.path + ".tmp");
+      this.write(tmpPath, true, 0);
+      Files.move(tmpPath, CSVPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } else if (this.persistedRows < this.rows.size()) {
+      this.write(Paths.get(this.path), false, this.persistedRows);
+    } else {
+      return;
+    }
+    this.persistedRows = this.rows.size();
+    this.rewrite = false;
+  }
+
+  /**
+   * Writes rows to a file and forces them to disk.
    *
-   * @return {@code ArrayList<String[]>}.
+   * @param target {@code Path} File to write.
+   * @param withHeader {@code boolean} Whether to truncate the file and start with the header, else rows are appended.
+   * @param from {@code int} First row to write.
+   *
+   * @throws IOException If the file couldn't be written.
    * */
-  public ArrayList<String[]> getData() throws IOException {
-    ArrayList<String[]> dataFrame = new ArrayList<>();
-    Path CSVPath = Paths.get(this.path);
-    Files.lines(CSVPath).forEach(row -> {
-      dataFrame.add(row.split(", "));
-    });
-    return dataFrame;
+  private void write(Path target, boolean withHeader, int from) throws IOException {
+    StringBuilder content = new StringBuilder();
+    if (withHeader) {
+      content.append(String.join(", ", this.header)).append('\n');
+    }
+    for (int i = from; i < this.rows.size(); i++) {
+      content.append(String.join(", ", this.rows.get(i))).append('\n');
+    }
+    StandardOpenOption mode = withHeader ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+    try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+      ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Cuts the file after its last line break.
+   *
+   * @throws IOException If the file couldn't be read or truncated.
+   * */
+  private void dropIncompleteLine() throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(this.path, "rw")) {
+      long length = file.length();
+      long end = length;
+      while (end > 0) {
+        file.seek(end - 1);
+        if (file.read() == '\n') { break; }
+        end--;
+      }
+      if (end > 0 && end < length) {
+        file.setLength(end);
+      }
+    }
   }
 
   /**
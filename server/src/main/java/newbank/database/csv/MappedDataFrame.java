@@ -0,0 +1,436 @@
+package newbank.database.csv;
+
+import newbank.database.Database;
+import newbank.database.Frame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The MappedDataFrame class serves a CSV file straight from the page cache through memory-mapped segments.
+ *
+ * Only the offset of every line is kept on the heap, fields are read from the mapping when they are
+ * needed, so loading a table only costs mapping the file and finding its line breaks. Appended and updated
+ * rows are held on the heap until {@link #flush()}, so the mapping never holds a row before its log record
+ * is forced. The flush appends the new rows to the mapping, growing it by {@code CHUNK_SIZE} bytes at a
+ * time, and writes the updated rows keeping their length over the old ones, e.g. a balance going from 1000
+ * to 1001. Only a row changing length makes it stream the file into a new one.
+ * The file stays a plain CSV, so a table can switch between the {@code DataFrame} and this class without
+ * conversion.
+ * */
+public class MappedDataFrame implements Frame {
+  private static final long SEGMENT_SIZE = 1L << 30;
+  private static final long CHUNK_SIZE = 1L << 23;
+  private static final byte[] SEPARATOR = ", ".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+
+  private final String path;
+  private FileChannel channel;
+  private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+  private long capacity = 0;
+  private long length = 0;
+  private long[] offsets = new long[1024];
+  private int size = 0;
+  private final HashMap<Integer, String[]> updated = new HashMap<>();
+  private final ArrayList<String[]> appended = new ArrayList<>();
+
+  /**
+   * Instantiates a MappedDataFrame from an existing CSV.
+   *
+   * @param path {@code String} Path where the csv resides
+   * */
+  public MappedDataFrame(String path) {
+    this.path = path;
+    try {
+      this.load();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Instantiates a MappedDataFrame and creates a CSV.
+   *
+   * @param path {@code String} Path where the csv should be created
+   * @param fields {@code ArrayList<String>} List column names
+   * */
+  public MappedDataFrame(String path, ArrayList<String> fields) {
+    this.path = path;
+    ArrayList<String> header = new ArrayList<>(fields);
+    header.add(0, "index");
+    try {
+      Files.write(Paths.get(path), encode(header.toArray(new String[0])), StandardOpenOption.CREATE_NEW);
+      this.load();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size + this.appended.size();
+  }
+
+  @Override
+  public String[] getRow(int position) {
+    String[] row = this.held(position);
+    if (row != null) { return row; }
+    long start = this.offsets[position];
+    return this.decode(start, this.offsets[position + 1] - 1).split(", ");
+  }
+
+  @Override
+  public Object getValue(int position, int column, Database.DATA_TYPES type) {
+    String[] row = this.held(position);
+    if (row != null) { return Database.string2Object(type, row[column]); }
+    long start = this.fieldStart(position, column);
+    return Database.string2Object(type, this.decode(start, this.fieldEnd(position, start)));
+  }
+
+  @Override
+  public String getField(int position, int column) {
+    String[] row = this.held(position);
+    if (row != null) { return row[column]; }
+    long start = this.fieldStart(position, column);
+    return this.decode(start, this.fieldEnd(position, start));
+  }
+
+  /**
+   * Reads an integral field from the bytes of the mapping, without decoding it.
+   *
+   * @param position {@code int} Position of the row.
+   * @param column {@code int} Column of the field.
+   *
+   * @return {@code long} Value of the field.
+   * */
+  @Override
+  public long getLong(int position, int column) {
+    String[] row = this.held(position);
+    if (row != null) { return Long.parseLong(row[column]); }
+    long start = this.fieldStart(position, column);
+    long end = this.fieldEnd(position, start);
+    boolean negative = start < end && this.get(start) == '-';
+    long first = negative ? start + 1 : start;
+    if (first >= end) { throw new NumberFormatException("Not an integer at row " + position); }
+    long value = 0;
+    for (long offset = first; offset < end; offset++) {
+      int digit = this.get(offset) - '0';
+      if (digit < 0 || digit > 9) { throw new NumberFormatException("Not an integer at row " + position); }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Reads a boolean field from the bytes of the mapping, as {@code Boolean.parseBoolean} reads the text.
+   * */
+  @Override
+  public boolean getBoolean(int position, int column) {
+    String[] row = this.held(position);
+    if (row != null) { return Boolean.parseBoolean(row[column]); }
+    long start = this.fieldStart(position, column);
+    if (this.fieldEnd(position, start) - start != TRUE.length) { return false; }
+    for (int i = 0; i < TRUE.length; i++) {
+      if ((this.get(start + i) | 0x20) != TRUE[i]) { return false; }
+    }
+    return true;
+  }
+
+  /**
+   * Reads a char field from the mapping, decoding it only when it isn't ASCII.
+   * */
+  @Override
+  public char getChar(int position, int column) {
+    String[] row = this.held(position);
+    if (row != null) { return row[column].charAt(0); }
+    long start = this.fieldStart(position, column);
+    byte first = this.get(start);
+    if (first >= 0) { return (char) first; }
+    return this.decode(start, this.fieldEnd(position, start)).charAt(0);
+  }
+
+  /**
+   * Finds the next row whose field in a column reads as the value passed, comparing the bytes of the mapping.
+   *
+   * @param column {@code int} Column of the field.
+   * @param value {@code Object} Value to match, compared through its text.
+   * @param from {@code int} First position to check.
+   * @param to {@code int} Position after the last one to check.
+   *
+   * @return {@code int} Position of the matching row, -1 if there is none.
+   * */
+  @Override
+  public int nextMatch(int column, Object value, int from, int to) {
+    String text = value.toString();
+    byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+    int limit = Math.min(to, this.size());
+    for (int position = from; position < limit; position++) {
+      String[] row = this.held(position);
+      if (row != null) {
+        if (row[column].equals(text)) { return position; }
+        continue;
+      }
+      long start = this.fieldStart(position, column);
+      long end = this.fieldEnd(position, start);
+      if (end - start == expected.length && this.bytesEqual(start, expected)) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean addRow(ArrayList<String> fields) {
+    this.appended.add(fields.toArray(new String[0]));
+    return true;
+  }
+
+  @Override
+  public boolean replaceLine(int rowNumber, ArrayList<String> fields) {
+    if (rowNumber < 1 || rowNumber > this.size()) { return false; }
+    int position = rowNumber - 1;
+    if (position >= this.size) {
+      this.appended.set(position - this.size, fields.toArray(new String[0]));
+    } else {
+      this.updated.put(position, fields.toArray(new String[0]));
+    }
+    return true;
+  }
+
+  /**
+   * Forces the appended and updated rows to disk and cuts the file to its content. Updated rows of the same
+   * length as before are written in place and appended rows after the last line. If any row changed length,
+   * the file is streamed into a temporary file with the new rows, which atomically replaces the CSV.
+   *
+   * A crash while rows are written in place can leave a row half written: the write-ahead log, which is
+   * only cleared once the flush is done, writes it again. The line breaks never move, so the rows are
+   * still found.
+   *
+   * @throws IOException If the file couldn't be written.
+   * */
+  @Override
+  public void flush() throws IOException {
+    Iterator<Map.Entry<Integer, String[]>> rows = this.updated.entrySet().iterator();
+    while (rows.hasNext()) {
+      Map.Entry<Integer, String[]> entry = rows.next();
+      int position = entry.getKey();
+      byte[] line = encode(entry.getValue());
+      if (line.length == this.offsets[position + 1] - this.offsets[position]) {
+        this.put(this.offsets[position], line);
+        rows.remove();
+      }
+    }
+    if (this.updated.isEmpty()) {
+      for (String[] row: this.appended) {
+        byte[] line = encode(row);
+        this.ensureCapacity(this.length + line.length);
+        this.put(this.length, line);
+        this.length += line.length;
+        this.addOffset(this.length);
+      }
+      this.appended.clear();
+      for (MappedByteBuffer segment: this.segments) {
+        segment.force();
+      }
+      if (this.channel.size() != this.length) {
+        this.channel.truncate(this.length);
+        this.remap(this.length);
+      }
+      return;
+    }
+    Path CSVPath = Paths.get(this.path);
+    Path tmpPath = Paths.get(this.path + ".tmp");
+    try (FileChannel tmp = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      long runStart = 0;
+      for (int position = 0; position < this.size; position++) {
+        String[] row = this.updated.get(position);
+        if (row == null) { continue; }
+        this.transfer(runStart, this.offsets[position], tmp);
+        ByteBuffer line = ByteBuffer.wrap(encode(row));
+        while (line.hasRemaining()) {
+          tmp.write(line);
+        }
+        runStart = this.offsets[position + 1];
+      }
+      this.transfer(runStart, this.length, tmp);
+      for (String[] row: this.appended) {
+        ByteBuffer line = ByteBuffer.wrap(encode(row));
+        while (line.hasRemaining()) {
+          tmp.write(line);
+        }
+      }
+      tmp.force(true);
+    }
+    this.channel.close();
+    Files.move(tmpPath, CSVPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.updated.clear();
+    this.appended.clear();
+    this.load();
+  }
+
+  /**
+   * Maps the file and records where every line starts. A last line left incomplete by a crash is dropped,
+   * the write-ahead log holds it.
+   *
+   * @throws IOException If the file couldn't be mapped.
+   * */
+  private void load() throws IOException {
+    this.channel = FileChannel.open(Paths.get(this.path), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long fileSize = this.channel.size();
+    this.segments.clear();
+    this.capacity = 0;
+    this.remap(fileSize);
+    this.size = 0;
+    this.offsets[0] = 0;
+    long lastBreak = -1;
+    for (long offset = 0; offset < fileSize; offset++) {
+      if (this.get(offset) != '\n') { continue; }
+      if (lastBreak < 0) {
+        this.offsets[0] = offset + 1;
+      } else {
+        this.addOffset(offset + 1);
+      }
+      lastBreak = offset;
+    }
+    this.length = lastBreak + 1;
+    if (this.length < fileSize) {
+      this.channel.truncate(this.length);
+      this.remap(this.length);
+    }
+  }
+
+  /**
+   * Maps the file up to an offset, dropping the mappings past it.
+   *
+   * @param end {@code long} Offset the mapping must cover.
+   *
+   * @throws IOException If the file couldn't be mapped.
+   * */
+  private void remap(long end) throws IOException {
+    this.segments.clear();
+    this.capacity = 0;
+    this.mapUpTo(end);
+  }
+
+  /**
+   * Grows the mapping by chunks until it covers an offset. The file grows with the mapping.
+   *
+   * @param needed {@code long} Offset the mapping must cover.
+   *
+   * @throws IOException If the file couldn't be mapped.
+   * */
+  private void ensureCapacity(long needed) throws IOException {
+    if (needed <= this.capacity) { return; }
+    this.mapUpTo(((needed + CHUNK_SIZE - 1) / CHUNK_SIZE) * CHUNK_SIZE);
+  }
+
+  private void mapUpTo(long end) throws IOException {
+    if (!this.segments.isEmpty() && this.capacity % SEGMENT_SIZE != 0) {
+      // The last segment is partial, map it again with its new size.
+      this.segments.remove(this.segments.size() - 1);
+      this.capacity = this.segments.size() * SEGMENT_SIZE;
+    }
+    while (this.capacity < end) {
+      long segmentSize = Math.min(SEGMENT_SIZE, end - this.capacity);
+      this.segments.add(this.channel.map(FileChannel.MapMode.READ_WRITE, this.capacity, segmentSize));
+      this.capacity += segmentSize;
+    }
+  }
+
+  /**
+   * Returns a row held on the heap, appended or updated since the last flush.
+   *
+   * @param position {@code int} Position of the row.
+   *
+   * @return {@code String[]} Fields of the row, null if the row is only read from the mapping.
+   * */
+  private String[] held(int position) {
+    if (position >= this.size) { return this.appended.get(position - this.size); }
+    return this.updated.get(position);
+  }
+
+  private byte get(long offset) {
+    return this.segments.get((int) (offset / SEGMENT_SIZE)).get((int) (offset % SEGMENT_SIZE));
+  }
+
+  private void put(long offset, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      long at = offset + i;
+      this.segments.get((int) (at / SEGMENT_SIZE)).put((int) (at % SEGMENT_SIZE), bytes[i]);
+    }
+  }
+
+  private void addOffset(long end) {
+    if (this.size + 2 > this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+    }
+    this.size++;
+    this.offsets[this.size] = end;
+  }
+
+  /**
+   * Finds the offset where a field starts by skipping the separators before it.
+   * */
+  private long fieldStart(int position, int column) {
+    long offset = this.offsets[position];
+    long end = this.offsets[position + 1] - 1;
+    for (int skipped = 0; skipped < column && offset < end; offset++) {
+      if (this.get(offset) == SEPARATOR[0] && offset + 1 < end && this.get(offset + 1) == SEPARATOR[1]) {
+        skipped++;
+        offset++;
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Finds the offset where a field ends, exclusive.
+   * */
+  private long fieldEnd(int position, long start) {
+    long end = this.offsets[position + 1] - 1;
+    for (long offset = start; offset < end; offset++) {
+      if (this.get(offset) == SEPARATOR[0] && offset + 1 < end && this.get(offset + 1) == SEPARATOR[1]) {
+        return offset;
+      }
+    }
+    return end;
+  }
+
+  private boolean bytesEqual(long start, byte[] expected) {
+    for (int i = 0; i < expected.length; i++) {
+      if (this.get(start + i) != expected[i]) { return false; }
+    }
+    return true;
+  }
+
+  private String decode(long start, long end) {
+    byte[] bytes = new byte[(int) (end - start)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = this.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void transfer(long from, long to, FileChannel target) throws IOException {
+    while (from < to) {
+      from += this.channel.transferTo(from, to - from, target);
+    }
+  }
+
+  private static byte[] encode(String[] fields) {
+    return (String.join(", ", fields) + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,77 @@
+package newbank.database.wal;
+
+/**
+ * The CommitPolicy class configures how the write-ahead log groups records into batches.
+ *
+ * All the records waiting when a batch is flushed are written at once and forced to disk with a
+ * single {@code FileChannel.force}. A batch is flushed when it holds {@code batchSize} records or its
+ * oldest record has waited {@code maxLatencyMillis}, whichever comes first. When the policy is durable
+ * a writer only returns once its record is on disk, otherwise it returns straight away and at most
+ * {@code maxLatencyMillis} of changes can be lost on a crash.
+ * */
+public class CommitPolicy {
+  private final int batchSize;
+  private final long maxLatencyMillis;
+  private final boolean durable;
+
+  /**
+   * It instantiates a CommitPolicy.
+   *
+   * @param batchSize {@code int} Number of records that triggers a flush.
+   * @param maxLatencyMillis {@code long} Longest time a record waits for its batch to fill.
+   * @param durable {@code boolean} Whether writers wait for their record to be on disk.
+   * */
+  public CommitPolicy(int batchSize, long maxLatencyMillis, boolean durable) {
+    if (batchSize < 1 || maxLatencyMillis < 0) {
+      throw new IllegalArgumentException("The batch size must be positive and the latency can't be negative");
+    }
+    this.batchSize = batchSize;
+    this.maxLatencyMillis = maxLatencyMillis;
+    this.durable = durable;
+  }
+
+  /**
+   * Every commit is forced to disk before returning. Commits made at the same time share the same force.
+   *
+   * @return {@code CommitPolicy} the default policy.
+   * */
+  public static CommitPolicy durable() {
+    return new CommitPolicy(1, 0, true);
+  }
+
+  /**
+   * Commits wait up to {@code maxLatencyMillis} for {@code batchSize} records to be forced together.
+   *
+   * @param batchSize {@code int} Number of records that triggers a flush.
+   * @param maxLatencyMillis {@code long} Longest time a record waits for its batch to fill.
+   *
+   * @return {@code CommitPolicy} a durable batching policy.
+   * */
+  public static CommitPolicy grouped(int batchSize, long maxLatencyMillis) {
+    return new CommitPolicy(batchSize, maxLatencyMillis, true);
+  }
+
+  /**
+   * Commits return as soon as they are queued and are forced in the background.
+   *
+   * @param batchSize {@code int} Number of records that triggers a flush.
+   * @param maxLatencyMillis {@code long} Longest time a record waits for its batch to fill.
+   *
+   * @return {@code CommitPolicy} a non durable batching policy.
+   * */
+  public static CommitPolicy deferred(int batchSize, long maxLatencyMillis) {
+    return new CommitPolicy(batchSize, maxLatencyMillis, false);
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public long getMaxLatencyMillis() {
+    return maxLatencyMillis;
+  }
+
+  public boolean isDurable() {
+    return durable;
+  }
+}
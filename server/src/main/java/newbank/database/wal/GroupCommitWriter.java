@@ -0,0 +1,216 @@
+package newbank.database.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The GroupCommitWriter class merges the frames appended by many threads into batches.
+ *
+ * Writers queue their frame and get a sequence number back. A single flusher thread takes every queued
+ * frame, writes them with one gathering write and forces the channel once, then wakes up the writers
+ * waiting on any of those sequence numbers.
+ * */
+class GroupCommitWriter {
+  private final FileChannel channel;
+  private final CommitPolicy policy;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition queued = lock.newCondition();
+  private final Condition flushed = lock.newCondition();
+  private final Thread flusher;
+  private ArrayList<ByteBuffer> pending = new ArrayList<>();
+  private long firstPendingAt;
+  private long appendedSequence = 0;
+  private long durableSequence = 0;
+  private long batches = 0;
+  private IOException failure;
+  private boolean closed = false;
+
+  /**
+   * It instantiates a GroupCommitWriter and starts its flusher thread.
+   *
+   * @param channel {@code FileChannel} Channel the frames are written to, at its current position.
+   * @param policy {@code CommitPolicy} When batches are flushed.
+   * */
+  GroupCommitWriter(FileChannel channel, CommitPolicy policy) {
+    this.channel = channel;
+    this.policy = policy;
+    this.flusher = new Thread(this::flushLoop, "newbank-wal-flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * Queues a frame to be written in the next batch.
+   *
+   * @param frame {@code ByteBuffer} Frame to write.
+   *
+   * @return {@code long} Sequence number of the frame.
+   *
+   * @throws IOException If a previous batch failed or the writer is closed.
+   * */
+  long append(ByteBuffer frame) throws IOException {
+    this.lock.lock();
+    try {
+      this.checkUsable();
+      if (this.pending.isEmpty()) {
+        this.firstPendingAt = System.nanoTime();
+      }
+      this.pending.add(frame);
+      this.appendedSequence++;
+      if (this.pending.size() == 1 || this.pending.size() >= this.policy.getBatchSize()) {
+        this.queued.signal();
+      }
+      return this.appendedSequence;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the frame with the given sequence number is on disk.
+   *
+   * @param sequence {@code long} Sequence number returned by {@link #append(ByteBuffer)}.
+   *
+   * @throws IOException If the batch holding the frame couldn't be written.
+   * */
+  void await(long sequence) throws IOException {
+    this.lock.lock();
+    try {
+      while (this.durableSequence < sequence) {
+        if (this.failure != null) { throw this.failure; }
+        this.flushed.awaitUninterruptibly();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until every frame queued so far is on disk, without waiting for the batch to fill.
+   *
+   * @throws IOException If a batch couldn't be written.
+   * */
+  void drain() throws IOException {
+    this.lock.lock();
+    long sequence;
+    try {
+      sequence = this.appendedSequence;
+      this.firstPendingAt = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(this.policy.getMaxLatencyMillis());
+      this.queued.signal();
+    } finally {
+      this.lock.unlock();
+    }
+    this.await(sequence);
+  }
+
+  /**
+   * Flushes the queued frames and stops the flusher thread.
+   *
+   * @throws IOException If the last batch couldn't be written.
+   * */
+  void close() throws IOException {
+    this.drain();
+    this.lock.lock();
+    try {
+      this.closed = true;
+      this.queued.signal();
+    } finally {
+      this.lock.unlock();
+    }
+    try {
+      this.flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return {@code long} Number of batches written and forced so far.
+   * */
+  long getBatches() {
+    this.lock.lock();
+    try {
+      return this.batches;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void checkUsable() throws IOException {
+    if (this.failure != null) { throw this.failure; }
+    if (this.closed) { throw new IOException("The write-ahead log is closed"); }
+  }
+
+  /**
+   * Body of the flusher thread: waits for a batch to be ready, writes it and forces it.
+   * */
+  private void flushLoop() {
+    while (true) {
+      ArrayList<ByteBuffer> batch;
+      long batchSequence;
+      this.lock.lock();
+      try {
+        while (!this.closed && !this.batchReady()) {
+          if (this.pending.isEmpty()) {
+            this.queued.awaitUninterruptibly();
+          } else {
+            long deadline = this.firstPendingAt + TimeUnit.MILLISECONDS.toNanos(this.policy.getMaxLatencyMillis());
+            try {
+              this.queued.awaitNanos(deadline - System.nanoTime());
+            } catch (InterruptedException e) {
+              // Nobody else owns the flusher thread, the batch is checked again.
+            }
+          }
+        }
+        if (this.pending.isEmpty()) { return; }
+        batch = this.pending;
+        batchSequence = this.appendedSequence;
+        this.pending = new ArrayList<>(batch.size());
+      } finally {
+        this.lock.unlock();
+      }
+
+      IOException error = null;
+      try {
+        this.write(batch);
+      } catch (IOException e) {
+        error = e;
+      }
+
+      this.lock.lock();
+      try {
+        if (error != null) {
+          this.failure = error;
+        } else {
+          this.durableSequence = batchSequence;
+          this.batches++;
+        }
+        this.flushed.signalAll();
+        if (error != null) { return; }
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  private boolean batchReady() {
+    if (this.pending.isEmpty()) { return false; }
+    if (this.pending.size() >= this.policy.getBatchSize()) { return true; }
+    long waited = System.nanoTime() - this.firstPendingAt;
+    return waited >= TimeUnit.MILLISECONDS.toNanos(this.policy.getMaxLatencyMillis());
+  }
+
+  private void write(ArrayList<ByteBuffer> batch) throws IOException {
+    ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+    ByteBuffer last = buffers[buffers.length - 1];
+    while (last.hasRemaining()) {
+      this.channel.write(buffers);
+    }
+    this.channel.force(false);
+  }
+}
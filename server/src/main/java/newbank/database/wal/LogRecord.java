@@ -0,0 +1,170 @@
+package newbank.database.wal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The LogRecord class represents one change of a table as written in the write-ahead log.
+ *
+ * Every record puts a full row at a position of a table, so replaying a record twice leaves the
+ * table in the same state. A transaction record holds the records of a transaction: they share one
+ * frame and one checksum, so a crash keeps all of them or none.
+ * */
+public class LogRecord {
+  static final int HEADER_SIZE = 8;
+
+  public enum TYPES {
+    INSERT,
+    UPDATE,
+    TRANSACTION,
+  }
+
+  private final TYPES type;
+  private final String table;
+  private final int position;
+  private final String[] fields;
+  private final List<LogRecord> children;
+
+  /**
+   * It instantiates a LogRecord.
+   *
+   * @param type {@code TYPES} Kind of change.
+   * @param table {@code String} Name of the table changed.
+   * @param position {@code int} Position of the row in the table.
+   * @param fields {@code String[]} Full row, index included.
+   * */
+  public LogRecord(TYPES type, String table, int position, String[] fields) {
+    this(type, table, position, fields, Collections.emptyList());
+  }
+
+  private LogRecord(TYPES type, String table, int position, String[] fields, List<LogRecord> children) {
+    this.type = type;
+    this.table = table;
+    this.position = position;
+    this.fields = fields;
+    this.children = children;
+  }
+
+  public static LogRecord insert(String table, int position, ArrayList<String> fields) {
+    return new LogRecord(TYPES.INSERT, table, position, fields.toArray(new String[0]));
+  }
+
+  public static LogRecord update(String table, int position, ArrayList<String> fields) {
+    return new LogRecord(TYPES.UPDATE, table, position, fields.toArray(new String[0]));
+  }
+
+  /**
+   * @param records {@code List<LogRecord>} Inserts and updates of the transaction, in the order they apply.
+   *
+   * @return {@code LogRecord} a record holding them.
+   * */
+  public static LogRecord transaction(List<LogRecord> records) {
+    return new LogRecord(TYPES.TRANSACTION, "", -1, new String[0], new ArrayList<>(records));
+  }
+
+  public TYPES getType() {
+    return type;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public String[] getFields() {
+    return fields;
+  }
+
+  /**
+   * @return {@code List<LogRecord>} Records of a transaction, empty for other records.
+   * */
+  public List<LogRecord> getChildren() {
+    return children;
+  }
+
+  /**
+   * Encodes the record as a frame: payload length, CRC32 of the payload and the payload itself.
+   *
+   * @return {@code ByteBuffer} frame ready to be written.
+   * */
+  ByteBuffer toFrame() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      if (this.type == TYPES.TRANSACTION) {
+        out.writeByte(this.type.ordinal());
+        out.writeInt(this.children.size());
+        for (LogRecord child: this.children) {
+          child.write(out);
+        }
+      } else {
+        this.write(out);
+      }
+      out.flush();
+      byte[] payload = bytes.toByteArray();
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+      frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+      frame.flip();
+      return frame;
+    } catch (IOException e) {
+      // Writing to a byte array doesn't fail.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    out.writeByte(this.type.ordinal());
+    out.writeUTF(this.table);
+    out.writeInt(this.position);
+    out.writeInt(this.fields.length);
+    for (String field: this.fields) {
+      out.writeUTF(field);
+    }
+  }
+
+  /**
+   * Decodes the payload of a frame.
+   *
+   * @param payload {@code byte[]} payload already checked against its CRC32.
+   *
+   * @return {@code LogRecord} the decoded record.
+   *
+   * @throws IOException If the payload is malformed.
+   * */
+  static LogRecord fromPayload(byte[] payload) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    TYPES type = TYPES.values()[in.readByte()];
+    if (type == TYPES.TRANSACTION) {
+      ArrayList<LogRecord> children = new ArrayList<>();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        children.add(read(in, TYPES.values()[in.readByte()]));
+      }
+      return new LogRecord(type, "", -1, new String[0], children);
+    }
+    return read(in, type);
+  }
+
+  private static LogRecord read(DataInputStream in, TYPES type) throws IOException {
+    String table = in.readUTF();
+    int position = in.readInt();
+    String[] fields = new String[in.readInt()];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = in.readUTF();
+    }
+    return new LogRecord(type, table, position, fields);
+  }
+}
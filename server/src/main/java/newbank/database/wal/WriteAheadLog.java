@@ -0,0 +1,165 @@
+package newbank.database.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The WriteAheadLog class is the append-only journal of the database package.
+ *
+ * Every insert and update is appended here as a {@code LogRecord} before the table is changed in memory.
+ * Records are written in batches by a {@code GroupCommitWriter} as set by the {@code CommitPolicy}.
+ * Table files are only rewritten at checkpoints, after which the log is truncated. When the database is
+ * started the log is replayed on top of the table files, so a crash never loses an acknowledged change.
+ * A record torn by a crash fails its CRC32 check and is discarded with everything after it.
+ * */
+public class WriteAheadLog {
+  private final FileChannel channel;
+  private final CommitPolicy policy;
+  private final GroupCommitWriter writer;
+  private final AtomicInteger records = new AtomicInteger();
+
+  /**
+   * It opens the log, creating the file if needed.
+   *
+   * @param path {@code String} Path of the log file.
+   * @param policy {@code CommitPolicy} How records are grouped before being forced to disk.
+   *
+   * @throws IOException If the file can't be opened.
+   * */
+  public WriteAheadLog(String path, CommitPolicy policy) throws IOException {
+    this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.channel.position(this.channel.size());
+    this.policy = policy;
+    this.writer = new GroupCommitWriter(this.channel, policy);
+  }
+
+  /**
+   * Queues a record at the end of the log. The record is written with the next batch,
+   * {@link #sync(long)} waits for it to be on disk.
+   *
+   * @param record {@code LogRecord} record to append.
+   *
+   * @return {@code long} Sequence number of the record.
+   *
+   * @throws IOException If the log can't be written anymore.
+   * */
+  public long append(LogRecord record) throws IOException {
+    long sequence = this.writer.append(record.toFrame());
+    this.records.incrementAndGet();
+    return sequence;
+  }
+
+  /**
+   * Waits for a record to be on disk when the commit policy is durable, otherwise returns straight away.
+   *
+   * @param sequence {@code long} Sequence number returned by {@link #append(LogRecord)}.
+   *
+   * @throws IOException If the batch holding the record couldn't be written.
+   * */
+  public void sync(long sequence) throws IOException {
+    if (this.policy.isDurable()) {
+      this.writer.await(sequence);
+    }
+  }
+
+  /**
+   * Waits for every record appended so far to be on disk, whatever the commit policy.
+   *
+   * @throws IOException If a batch couldn't be written.
+   * */
+  public void flush() throws IOException {
+    this.writer.drain();
+  }
+
+  /**
+   * Reads the log from the start and passes every valid record to the consumer.
+   * The log is cut right after the last valid record.
+   *
+   * @param consumer {@code Consumer<LogRecord>} Receives the records in the order they were written.
+   *
+   * @return {@code int} Number of records replayed.
+   *
+   * @throws IOException If the file couldn't be read.
+   * */
+  public int replay(Consumer<LogRecord> consumer) throws IOException {
+    long size = this.channel.size();
+    long position = 0;
+    int count = 0;
+    ByteBuffer header = ByteBuffer.allocate(LogRecord.HEADER_SIZE);
+    CRC32 crc = new CRC32();
+    while (position + LogRecord.HEADER_SIZE <= size) {
+      header.clear();
+      this.readFully(header, position);
+      int length = header.getInt(0);
+      int checksum = header.getInt(4);
+      if (length < 0 || position + LogRecord.HEADER_SIZE + length > size) { break; }
+      ByteBuffer payload = ByteBuffer.allocate(length);
+      this.readFully(payload, position + LogRecord.HEADER_SIZE);
+      crc.reset();
+      crc.update(payload.array());
+      if ((int) crc.getValue() != checksum) { break; }
+      consumer.accept(LogRecord.fromPayload(payload.array()));
+      position += LogRecord.HEADER_SIZE + length;
+      count++;
+    }
+    if (position < size) {
+      System.out.printf("Discarding %d bytes of incomplete log records\n", size - position);
+      this.channel.truncate(position);
+    }
+    this.channel.position(position);
+    this.records.set(count);
+    return count;
+  }
+
+  /**
+   * Empties the log. It must only be called once every table has been checkpointed and
+   * while no record is being appended.
+   *
+   * @throws IOException If the file couldn't be truncated.
+   * */
+  public void truncate() throws IOException {
+    this.writer.drain();
+    this.channel.truncate(0);
+    this.channel.position(0);
+    this.channel.force(true);
+    this.records.set(0);
+  }
+
+  /**
+   * @return {@code int} Number of records appended since the last truncation.
+   * */
+  public int getRecords() {
+    return records.get();
+  }
+
+  /**
+   * @return {@code long} Number of batches written and forced since the log was opened: each one is a
+   * single force of the file, whatever the number of records it holds.
+   * */
+  public long getBatches() {
+    return this.writer.getBatches();
+  }
+
+  /**
+   * Flushes the pending records and closes the log file.
+   *
+   * @throws IOException If the file couldn't be written or closed.
+   * */
+  public void close() throws IOException {
+    this.writer.close();
+    this.channel.close();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (this.channel.read(buffer, position + buffer.position()) < 0) { break; }
+    }
+    buffer.flip();
+  }
+}
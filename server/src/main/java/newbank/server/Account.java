@@ -1,24 +1,30 @@
 package newbank.server;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Customer Account Controller Class
  *
  * This class contains the logic for a New Bank Account.
+ *
+ * The balance is held in pence in an {@code AtomicLong}: debits are compare-and-set loops that
+ * never take the balance below zero, so transfers don't need any lock. Every change of the balance
+ * is reported to the owner, whose cached rendering of its accounts is then out of date.
  */
 public class Account {
 
   private String accountName;
-  private double openingBalance;
+  private final AtomicLong balance;
   private Customer owner = null;
   private int accountNumber;
   private int sortCode;
   private Date openDate;
+  // The parts of toString that never change, rendered once.
+  private final String header;
+  private final String footer;
 
   private Date todaysDate() {
-    Date today = Calendar.getInstance().getTime();
-    System.out.print(today);
-    return today;
+    return Calendar.getInstance().getTime();
   }
 
   private int accountNumberGenerator() {
@@ -40,38 +46,150 @@ public class Account {
    * @param openingBalance {@code double} starting balance of the account
    * */
   public Account(String accountName, double openingBalance) {
+    this(accountName, Math.round(openingBalance * 100), 0, 0, null);
+  }
+
+  /**
+   * Creates an instance of an account that already exists, e.g. read back from the database.
+   *
+   * @param accountName {@code String}
+   * @param pence {@code long} balance of the account, in pence
+   * @param accountNumber {@code int} account number, generated if 0
+   * @param sortCode {@code int} sort code, generated if 0
+   * @param openDate {@code Date} date the account was opened, today if null
+   * */
+  public Account(String accountName, long pence, int accountNumber, int sortCode, Date openDate) {
     this.accountName = accountName;
-    this.openingBalance = openingBalance;
-    this.accountNumber = accountNumberGenerator();
-    this.sortCode = sortCodeGenerator();
-    this.openDate = todaysDate();
+    this.balance = new AtomicLong(pence);
+    this.accountNumber = accountNumber != 0 ? accountNumber : accountNumberGenerator();
+    this.sortCode = sortCode != 0 ? sortCode : sortCodeGenerator();
+    this.openDate = openDate != null ? openDate : todaysDate();
+    this.header = "Account Name: " + this.accountName +
+            "\nAccount No: " + this.accountNumber +
+            "\n" + "Sort Code: " + this.sortCode +
+            "\nBalance: ";
+    this.footer = "\nAccount Opened: " + this.openDate + "\n";
   }
 
   public String toString() {
-    return ("Account Name: " + accountName +
-            "\nAccount No: " + accountNumber +
-            "\n" + "Sort Code: " + sortCode +
-            "\nBalance: " + openingBalance +
-            "\nAccount Opened: " + openDate +
-            "\n");
+    StringBuilder s = new StringBuilder();
+    appendTo(s);
+    return s.toString();
+  }
+
+  /**
+   * Appends the text of toString without building an intermediate string.
+   *
+   * @param s {@code StringBuilder} Text the account is added to.
+   */
+  void appendTo(StringBuilder s) {
+    s.append(header).append(getBalance()).append(footer);
+  }
+
+  /**
+   * @param owner {@code Customer} Customer told about the changes of the balance.
+   */
+  void setOwner(Customer owner) {
+    this.owner = owner;
+  }
+
+  private void changed() {
+    if (owner != null) {
+      owner.balanceChanged(this);
+    }
   }
 
   /**
    * Transfer money between two accounts
    *
-   * @param amount the amount to transfer
+   * @param amount the amount to transfer, greater than 0
    * @param transferAccount the account to transfer money to
-   * @return true if the money was transferred and false if there was not enough money
+   * @return true if the money was transferred and false if there was not enough money or the amount isn't positive
    */
   public boolean transfer(int amount, Account transferAccount){
+    return transferInPence(amount * 100L, transferAccount);
+  }
+
+  /**
+   * Transfer money between two accounts
+   *
+   * @param pence the amount to transfer, in pence, greater than 0
+   * @param transferAccount the account to transfer money to
+   * @return true if the money was transferred and false if there was not enough money or the amount isn't positive
+   */
+  public boolean transferInPence(long pence, Account transferAccount){
     // Check the account has enough money to transfer
-    if (this.openingBalance >= amount){
-      this.openingBalance -= amount;
-      transferAccount.openingBalance += amount;
-      return true;
-    } else {
+    if (!debit(pence)) {
+      return false;
+    }
+    transferAccount.credit(pence);
+    return true;
+  }
+
+  /**
+   * Takes money from the account unless it doesn't have enough.
+   *
+   * @param pence amount to take, in pence, greater than 0
+   * @return true if the money was taken and false if there was not enough money or the amount isn't positive
+   */
+  public boolean debit(long pence) {
+    if (pence <= 0) {
       return false;
     }
+    while (true) {
+      long current = balance.get();
+      if (current < pence) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - pence)) {
+        changed();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Adds money to the account.
+   *
+   * @param pence amount to add, in pence, greater than 0
+   * @throws IllegalArgumentException if the amount isn't positive
+   */
+  public void credit(long pence) {
+    if (pence <= 0) {
+      throw new IllegalArgumentException("The amount to credit must be positive");
+    }
+    balance.addAndGet(pence);
+    changed();
+  }
+
+  public String getAccountName() {
+    return accountName;
+  }
+
+  public int getAccountNumber() {
+    return accountNumber;
+  }
+
+  public int getSortCode() {
+    return sortCode;
+  }
+
+  public Date getOpenDate() {
+    return openDate;
+  }
+
+  /**
+   * @return {@code long} balance of the account in pence.
+   */
+  public long getBalanceInPence() {
+    return balance.get();
+  }
+
+  /**
+   * @return {@code double} balance of the account in pounds.
+   */
+  public double getBalance() {
+    return balance.get() / 100.0;
   }
 
 }
@@ -0,0 +1,18 @@
+package newbank.server;
+
+/**
+ * The AccountListener interface is told about the changes made to the accounts of a customer.
+ *
+ * It is called by the thread making the change, after the change is made, so it must not block.
+ * */
+public interface AccountListener {
+  /**
+   * @param account {@code Account} Account added to the customer.
+   * */
+  void accountOpened(Account account);
+
+  /**
+   * @param account {@code Account} Account whose balance was debited or credited.
+   * */
+  void balanceChanged(Account account);
+}
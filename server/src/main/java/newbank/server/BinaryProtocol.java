@@ -0,0 +1,179 @@
+package newbank.server;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The BinaryProtocol class serves the clients that talk to the bank in length-prefixed binary frames.
+ *
+ * A client asks for it by sending {@link #MAGIC} as the first bytes of the connection. Text clients never
+ * send a NUL byte, so they are served as before; the server answers with the same magic, which its
+ * clients find after the login menu already sent.
+ *
+ * Every frame is an int length, then an opcode byte and its payload. Strings are an unsigned short
+ * length followed by UTF-8 bytes, amounts are longs in pence. Requests are decoded from the buffer they
+ * were read into and responses are encoded into a buffer reused from one request to the next.
+ * */
+public class BinaryProtocol {
+  public static final byte[] MAGIC = {0, 'N', 'B', 'B', '1'};
+  public static final int MAX_FRAME_LENGTH = 4096;
+
+  public static final byte LOGIN = 0x01;
+  public static final byte SHOW_ACCOUNTS = 0x02;
+  public static final byte NEW_ACCOUNT = 0x03;
+  public static final byte MOVE = 0x04;
+
+  public static final byte OK = (byte) 0x80;
+  public static final byte ERROR = (byte) 0x81;
+  public static final byte ACCOUNTS = (byte) 0x82;
+
+  private static final int INITIAL_RESPONSE_SIZE = 1024;
+
+  private final NewBank bank;
+  private final boolean direct;
+  private ByteBuffer response;
+  private CustomerID customer;
+
+  /**
+   * @param bank {@code NewBank} Bank the requests are run against.
+   * @param direct {@code boolean} Whether responses are encoded off heap, for channels.
+   * */
+  public BinaryProtocol(NewBank bank, boolean direct) {
+    this.bank = bank;
+    this.direct = direct;
+    this.response = this.allocate(INITIAL_RESPONSE_SIZE);
+  }
+
+  /**
+   * Checks whether bytes are the magic a binary client starts with.
+   *
+   * @param bytes {@code byte[]} First bytes of the connection.
+   *
+   * @return {@code boolean} true if they are the magic.
+   * */
+  public static boolean isMagic(byte[] bytes) {
+    if (bytes.length != MAGIC.length) { return false; }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (bytes[i] != MAGIC[i]) { return false; }
+    }
+    return true;
+  }
+
+  /**
+   * Runs a request and encodes its response.
+   *
+   * @param request {@code ByteBuffer} Frame without its length: from the opcode to the end of the payload.
+   *
+   * @return {@code ByteBuffer} Response frame, length included, ready to be written. It is only valid
+   * until the next request.
+   * */
+  public ByteBuffer handle(ByteBuffer request) {
+    this.response.clear();
+    this.response.position(4);
+    this.run(request.duplicate());
+    this.response.putInt(0, this.response.position() - 4);
+    this.response.flip();
+    return this.response;
+  }
+
+  private void run(ByteBuffer request) {
+    try {
+      byte opcode = request.get();
+      if (opcode == LOGIN) {
+        String userName = getString(request);
+        String password = getString(request);
+        this.customer = this.bank.checkLogInDetails(userName, password);
+        this.reply(this.customer == null ? "Incorrect username" : null);
+        return;
+      }
+      if (this.customer == null) {
+        this.reply("Not logged in");
+        return;
+      }
+      switch (opcode) {
+        case SHOW_ACCOUNTS:
+          this.putAccounts(this.bank.getAccounts(this.customer));
+          break;
+        case NEW_ACCOUNT:
+          this.reply(this.bank.openAccount(this.customer, getString(request)));
+          break;
+        case MOVE:
+          long pence = request.getLong();
+          String from = getString(request);
+          this.reply(this.bank.moveMoney(this.customer, pence, from, getString(request)));
+          break;
+        default:
+          this.reply("Unknown opcode");
+      }
+    } catch (BufferUnderflowException e) {
+      this.reply("Malformed request");
+    }
+  }
+
+  private void putAccounts(List<Account> accounts) {
+    int size = 5;
+    for (Account account: accounts) {
+      size += 18 + account.getAccountName().getBytes(StandardCharsets.UTF_8).length;
+    }
+    this.ensureRemaining(size);
+    this.response.put(ACCOUNTS);
+    this.response.putInt(accounts.size());
+    for (Account account: accounts) {
+      putString(this.response, account.getAccountName());
+      this.response.putInt(account.getAccountNumber());
+      this.response.putInt(account.getSortCode());
+      this.response.putLong(account.getBalanceInPence());
+    }
+  }
+
+  /**
+   * @param error {@code String} Reason of the failure, null to reply OK.
+   * */
+  private void reply(String error) {
+    if (error == null) {
+      this.response.put(OK);
+    } else {
+      this.ensureRemaining(3 + error.getBytes(StandardCharsets.UTF_8).length);
+      this.response.put(ERROR);
+      putString(this.response, error);
+    }
+  }
+
+  /**
+   * Grows the response buffer, keeping what was written, so it can take a number of bytes more.
+   * */
+  private void ensureRemaining(int bytes) {
+    if (this.response.remaining() >= bytes) { return; }
+    ByteBuffer grown = this.allocate(Math.max(this.response.capacity() * 2, this.response.position() + bytes));
+    this.response.flip();
+    grown.put(this.response);
+    this.response = grown;
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  public static String getString(ByteBuffer buffer) {
+    int length = buffer.getShort() & 0xFFFF;
+    if (buffer.remaining() < length) { throw new BufferUnderflowException(); }
+    String value;
+    if (buffer.hasArray()) {
+      value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.duplicate().get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  public static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+}
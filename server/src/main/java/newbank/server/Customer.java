@@ -1,25 +1,74 @@
 package newbank.server;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The Customer class holds the accounts of a customer.
+ *
+ * The text listing the accounts is cached with the version of the accounts it was rendered from.
+ * Opening an account or changing a balance bumps the version, so a listing is only rendered again
+ * after something in it changed. The changes are also reported to the {@code AccountListener} of the
+ * customer, if any, e.g. to save them.
+ * */
 public class Customer {
   public static final class AccountAlreadyExists extends Exception {
     public AccountAlreadyExists(String message) {
       super(message);
     }
   }
+  private static final class Rendering {
+    private final long version;
+    private final String text;
+
+    private Rendering(long version, String text) {
+      this.version = version;
+      this.text = text;
+    }
+  }
+
   private HashMap<String, Account> accounts;
+  private final AtomicLong version = new AtomicLong();
+  private volatile Rendering rendering = null;
+  private volatile AccountListener listener = null;
 
   public Customer() {
     accounts = new HashMap<>();
   }
 
   public String accountsToString() {
+    long current = version.get();
+    Rendering cached = rendering;
+    if (cached != null && cached.version == current) {
+      return cached.text;
+    }
     StringBuilder s = new StringBuilder();
     for(Account a : accounts.values()) {
-      s.append(a.toString());
+      a.appendTo(s);
+    }
+    String text = s.toString();
+    // If the accounts changed meanwhile the version moved on and the next call renders them again.
+    rendering = new Rendering(current, text);
+    return text;
+  }
+
+  /**
+   * @param listener {@code AccountListener} Listener told about the changes of the accounts from now on.
+   * */
+  public void setListener(AccountListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Marks the cached listing of the accounts as out of date. Called after the change is made.
+   * */
+  void balanceChanged(Account account) {
+    version.incrementAndGet();
+    AccountListener current = listener;
+    if (current != null) {
+      current.balanceChanged(account);
     }
-    return s.toString();
   }
 
   /**
@@ -32,11 +81,29 @@ public class Customer {
    * @throws AccountAlreadyExists If the Account doesn't exist
    * */
   public Account addAccount(String accountName, double openingBalance) throws AccountAlreadyExists {
-    if(this.accounts.get(accountName) != null) {
+    return addAccount(new Account(accountName, openingBalance));
+  }
+
+  /**
+   * Adds an existing account to a customer, e.g. one read back from the database.
+   *
+   * @param account {@code Account}
+   *
+   * @return {@code Account} the account added
+   * @throws AccountAlreadyExists If the customer already has an account with this name
+   * */
+  public Account addAccount(Account account) throws AccountAlreadyExists {
+    if(this.accounts.get(account.getAccountName()) != null) {
       throw new AccountAlreadyExists("There's an existing account with this name");
     }
-    accounts.put(accountName, new Account(accountName, openingBalance));
-    return this.accounts.get(accountName);
+    account.setOwner(this);
+    accounts.put(account.getAccountName(), account);
+    version.incrementAndGet();
+    AccountListener current = listener;
+    if (current != null) {
+      current.accountOpened(account);
+    }
+    return account;
   }
 
   /**
@@ -50,6 +117,10 @@ public class Customer {
     return this.accounts.get(accountName);
   }
 
+  public Collection<Account> getAccounts() {
+    return this.accounts.values();
+  }
+
   /**
    * Move money between users accounts if possible
    * @param amount the amount to move
@@ -58,6 +129,17 @@ public class Customer {
    * @return null if the transfer succeeded, otherwise a string containing the reason for the failure
    */
   public String moveMoneyBetweenAccounts(int amount, String from, String to) {
+    return moveMoneyInPence(amount * 100L, from, to);
+  }
+
+  /**
+   * Move money between users accounts if possible
+   * @param pence the amount to move, in pence
+   * @param from the account to move money from
+   * @param to the account to move money to
+   * @return null if the transfer succeeded, otherwise a string containing the reason for the failure
+   */
+  public String moveMoneyInPence(long pence, String from, String to) {
     Account fromAccount = getAccount(from);
     Account toAccount = getAccount(to);
 
@@ -69,8 +151,12 @@ public class Customer {
       return "The account to transfer to does not exist.";
     }
 
+    if (pence <= 0) {
+      return "invalid transfer amount";
+    }
+
     // Try to transfer money
-    boolean hasTransferredMoney = fromAccount.transfer(amount, toAccount);
+    boolean hasTransferredMoney = fromAccount.transferInPence(pence, toAccount);
 
     if (hasTransferredMoney) {
       return null;
@@ -1,9 +1,17 @@
 package newbank.server;
 
 import java.io.PrintWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 import newbank.server.CustomerID;
+import newbank.server.commands.Command;
+import newbank.server.commands.CommandRegistry;
+import newbank.server.commands.Tokens;
+import newbank.server.persistence.WriteBehindCache;
 
 public class NewBank {
   public static final String NOT_ACCOUNT_NAME_MSG = "PLEASE PROVIDE AN ACCOUNT NAME";
@@ -13,11 +21,18 @@ public class NewBank {
   public static final String ACCOUNT_ALREADY_EXISTS_MSG = "THE ACCOUNT ALREADY EXISTS";
   public static final String ANYTHING_ELSE_MSG = "Anything else?";
 
+  private static final int LOCK_STRIPES = 256;
+
   private static final NewBank bank = new NewBank();
-  private HashMap<String,Customer> customers;
+  private ConcurrentHashMap<String,Customer> customers;
+  // Guards the accounts of a customer: commands reading them share the lock, NEWACCOUNT and MOVE take it alone,
+  // so a reader never sees a transfer debited and not yet credited. Customers on other stripes aren't held up.
+  private final StripedLocks customerLocks = new StripedLocks(LOCK_STRIPES);
+  private final CommandRegistry commands = CommandRegistry.defaults();
+  private volatile WriteBehindCache cache = null;
 
   public NewBank() {
-    customers = new HashMap<>();
+    customers = new ConcurrentHashMap<>();
     addTestData();
   }
 
@@ -31,34 +46,59 @@ public class NewBank {
     }
   }
 
+  /**
+   * It loads the customers saved by a write-behind cache, which saves the changes made from then on.
+   * The customers already in the bank are saved instead if nothing was saved yet.
+   * It must be called before serving any client.
+   *
+   * @param cache {@code WriteBehindCache} Cache of the store of the bank.
+   * */
+  public void load(WriteBehindCache cache) {
+    cache.setOwnerLocks(customerLocks::write);
+    Map<String, Customer> loaded = cache.load();
+    if (loaded.isEmpty()) {
+      for (Map.Entry<String, Customer> entry: customers.entrySet()) {
+        cache.customerAdded(entry.getKey(), entry.getValue());
+      }
+    } else {
+      customers.clear();
+      customers.putAll(loaded);
+    }
+    this.cache = cache;
+  }
+
   public CustomerID addCustomer(String customerUsername, String customerPassword, PrintWriter out) {
     try {
-      if (usernameExists(customerUsername)) {
-        out.println("\nThe selected username already exists, please pick another one.");
-        return null;
-      } else {
-        Customer newCustomer = new Customer();
-        // Setting 1000 as opening balance for testing purposes.
-        newCustomer.addAccount("Main", 1000.0);
-        customers.put(customerUsername, newCustomer);
-        out.println("\nYour account has been created!");
-        return new CustomerID(customerUsername); 
+      Customer newCustomer = new Customer();
+      // Setting 1000 as opening balance for testing purposes.
+      newCustomer.addAccount("Main", 1000.0);
+      // Requests of the customer wait for the lock, so it is saved before its first change.
+      Lock lock = customerLocks.write(customerUsername);
+      try {
+        if (customers.putIfAbsent(customerUsername, newCustomer) != null) {
+          out.println("\nThe selected username already exists, please pick another one.");
+          return null;
+        }
+        WriteBehindCache current = cache;
+        if (current != null) {
+          current.customerAdded(customerUsername, newCustomer);
+        }
+      } finally {
+        lock.unlock();
       }
+      out.println("\nYour account has been created!");
+      return new CustomerID(customerUsername);
     } catch (Customer.AccountAlreadyExists e) {
       out.println("\nError creating user");
       return null;
     }
   }
 
-  private boolean usernameExists(String customerUsername) {
-    return customers.containsKey(customerUsername);
-  }
-
   public static NewBank getBank() {
     return bank;
   }
 
-  public synchronized CustomerID checkLogInDetails(String userName, String password) {
+  public CustomerID checkLogInDetails(String userName, String password) {
     if(customers.containsKey(userName)) {
       return new CustomerID(userName);
     }
@@ -68,99 +108,175 @@ public class NewBank {
   /**
    * Dispatcher Function. It will check the command, validate the parameters passed
    * and if valid pass the parameters to the logic for the requested command.
+   * Only requests of customers sharing a lock stripe wait for each other.
    *
    * @param customer {@code CustomerID} Id of the customer that is interacting.
    * @param request {@code String} Command sent to server.
    *
    * @return {@code String} Response to be sent to the client.
    * */
-  public synchronized String processRequest(CustomerID customer, String request) {
-    if(customers.containsKey(customer.getKey())) {
-      String[] cmd = request.trim().split("\\s+");
-      Customer customer_session = customers.get(customer.getKey());
-      switch(cmd[0]) {
-        case "SHOWMYACCOUNTS":
-          return showMyAccounts(customer_session);
-        case "NEWACCOUNT":
-          if(cmd.length == 1) {
-            return NOT_ACCOUNT_NAME_MSG;
-          }
-          return addAccount(customer_session, cmd[1]);
-        case "HELP" :
-          return NewBankClientHandler.printHelp();
-        case "MOVE":
-          return moveMoneyBetweenAccounts(customer_session, cmd);
-        case "PAY":
-          return "PAY PLACEHOLDER";
-        case "":
-          return SELECT_ACTION_MSG; // On user enter pressed without typing a command
-        default:
-          return FAIL_MSG;
-      }
+  public String processRequest(CustomerID customer, String request) {
+    Customer customer_session = customers.get(customer.getKey());
+    if(customer_session == null) {
+      return FAIL_MSG;
+    }
+    Tokens tokens = Tokens.parse(request);
+    Command command = commands.find(tokens);
+    Lock lock = command != null && command.changesAccounts()
+            ? customerLocks.write(customer.getKey())
+            : customerLocks.read(customer.getKey());
+    try {
+      return dispatch(customer_session, command, tokens);
+    } finally {
+      lock.unlock();
     }
-    return FAIL_MSG;
   }
 
   /**
-   * It will create an account under the passed name for the customer.
+   * Runs a group of requests of a customer in one dispatch: the customer lock is taken once for all of them.
    *
-   * @param customer {@code Customer} Customer session that is interacting right now.
-   * @param name {@code String} Account Name.
+   * @param customer {@code CustomerID} Id of the customer that is interacting.
+   * @param requests {@code List<String>} Commands sent to server.
    *
-   * @return {@code String} Response to be sent to the client.
+   * @return {@code List<String>} Responses to be sent to the client, in the order of the requests.
    * */
-  private String addAccount(Customer customer, String name) {
+  public List<String> processBatch(CustomerID customer, List<String> requests) {
+    ArrayList<String> responses = new ArrayList<>(requests.size());
+    Customer customer_session = customers.get(customer.getKey());
+    if(customer_session == null) {
+      for (int i = 0; i < requests.size(); i++) {
+        responses.add(FAIL_MSG);
+      }
+      return responses;
+    }
+    Tokens[] parsed = new Tokens[requests.size()];
+    Command[] found = new Command[requests.size()];
+    boolean changesAccounts = false;
+    for (int i = 0; i < parsed.length; i++) {
+      parsed[i] = Tokens.parse(requests.get(i));
+      found[i] = commands.find(parsed[i]);
+      changesAccounts |= found[i] != null && found[i].changesAccounts();
+    }
+    Lock lock = changesAccounts
+            ? customerLocks.write(customer.getKey())
+            : customerLocks.read(customer.getKey());
     try {
-      customer.addAccount(name, 1000.0);
-      return String.format("'%s' %s. %s", name, ACCOUNT_CREATED_SUCCESSFULLY_MSG, ANYTHING_ELSE_MSG);
-    } catch (Customer.AccountAlreadyExists error) {
-      System.out.printf("Error: %s", error.getMessage());
-      return ACCOUNT_ALREADY_EXISTS_MSG;
+      for (int i = 0; i < parsed.length; i++) {
+        responses.add(dispatch(customer_session, found[i], parsed[i]));
+      }
+    } finally {
+      lock.unlock();
     }
+    return responses;
   }
 
-  private String showMyAccounts(Customer customer) {
-    return customer.accountsToString();
+  private String dispatch(Customer customer_session, Command command, Tokens tokens) {
+    if (command != null) {
+      return command.execute(customer_session, tokens);
+    }
+    if (tokens.size() == 0) {
+      return SELECT_ACTION_MSG; // On user enter pressed without typing a command
+    }
+    return FAIL_MSG;
   }
 
   /**
-   * Parse and excute an instruction to move money between accounts
+   * Adds a command to the text protocol, or replaces the command of its verb.
    *
-   * @param customer the logged in customer
-   * @param userInput the command line arguments provided by the user
-   * @return a string detailing if the transfer was successful or an error message
-   */
-  private String moveMoneyBetweenAccounts(Customer customer, String[] userInput){
-    assert userInput[0].equals("MOVE");
+   * @param command {@code Command} Command to add.
+   * */
+  public void registerCommand(Command command) {
+    commands.register(command);
+  }
 
-    // Ensure the user has entered the correct number of arguments
-    if (userInput.length != 4){
-      return "FAIL: wrong number of arguments.\nPlease try again";
+  /**
+   * Returns the accounts of a customer, for the clients that don't use the text protocol. It copies
+   * them under the customer lock, so the balances are never caught in the middle of a transfer.
+   *
+   * @param customer {@code CustomerID} Id of the customer that is interacting.
+   *
+   * @return {@code List<Account>} Accounts of the customer, null if the customer doesn't exist.
+   * */
+  public List<Account> getAccounts(CustomerID customer) {
+    Customer customer_session = customers.get(customer.getKey());
+    if(customer_session == null) {
+      return null;
+    }
+    Lock lock = customerLocks.read(customer.getKey());
+    try {
+      List<Account> accounts = new ArrayList<>();
+      for(Account account : customer_session.getAccounts()) {
+        accounts.add(new Account(account.getAccountName(), account.getBalanceInPence(),
+            account.getAccountNumber(), account.getSortCode(), account.getOpenDate()));
+      }
+      return accounts;
+    } finally {
+      lock.unlock();
     }
+  }
 
-    // Convert the amount to an integer
-    int amount;
-    try{
-      amount = Integer.parseInt(userInput[1]);
+  /**
+   * Creates an account, for the clients that don't use the text protocol.
+   *
+   * @param customer {@code CustomerID} Id of the customer that is interacting.
+   * @param name {@code String} Account Name.
+   *
+   * @return {@code String} null if the account was created, otherwise the reason of the failure.
+   * */
+  public String openAccount(CustomerID customer, String name) {
+    Customer customer_session = customers.get(customer.getKey());
+    if(customer_session == null) {
+      return FAIL_MSG;
     }
-    catch (NumberFormatException ex){
-      return "FAIL: invalid number for amount\nPlease try again";
+    Lock lock = customerLocks.write(customer.getKey());
+    try {
+      customer_session.addAccount(name, 1000.0);
+      return null;
+    } catch (Customer.AccountAlreadyExists error) {
+      return ACCOUNT_ALREADY_EXISTS_MSG;
+    } finally {
+      lock.unlock();
     }
+  }
 
-    // Check the transfer amount is not negative
-    if (amount < 0) {
-      return "FAIL: invalid transfer amount\nPlease try again";
+  /**
+   * Moves money between the accounts of a customer, for the clients that don't use the text protocol.
+   *
+   * @param customer {@code CustomerID} Id of the customer that is interacting.
+   * @param pence {@code long} Amount to move, in pence.
+   * @param from {@code String} Account to move money from.
+   * @param to {@code String} Account to move money to.
+   *
+   * @return {@code String} null if the money was moved, otherwise the reason of the failure.
+   * */
+  public String moveMoney(CustomerID customer, long pence, String from, String to) {
+    Customer customer_session = customers.get(customer.getKey());
+    if(customer_session == null) {
+      return FAIL_MSG;
+    }
+    if (pence <= 0) {
+      return "invalid transfer amount";
+    }
+    Lock lock = customerLocks.write(customer.getKey());
+    try {
+      return customer_session.moveMoneyInPence(pence, from, to);
+    } finally {
+      lock.unlock();
     }
+  }
 
-    // Try to move the customers money
-    String errorMessage = customer.moveMoneyBetweenAccounts(amount, userInput[2], userInput[3]);
+  /**
+   * @return {@code long} Number of customer locks acquired.
+   * */
+  public long getLockAcquisitions() {
+    return customerLocks.getAcquisitions();
+  }
 
-    // Inform the user of the transfer results
-    if (errorMessage == null) {
-      return "SUCCESS, Anything else?";
-    } else {
-      return String.format("FAIL: %s\nPlease try again", errorMessage);
-    }
+  /**
+   * @return {@code long} Number of customer locks that had to wait for another request.
+   * */
+  public long getContendedLocks() {
+    return customerLocks.getContended();
   }
 
 }
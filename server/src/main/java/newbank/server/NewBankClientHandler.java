@@ -1,25 +1,63 @@
 package newbank.server;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
-import java.util.regex.Matcher;
+import java.nio.ByteBuffer;
 import java.util.regex.Pattern;
 
 import newbank.server.CustomerID;
 
-public class NewBankClientHandler extends Thread{
+public class NewBankClientHandler implements Runnable{
+  public static final String LOGIN_MENU_MSG = "\nEnter:\n1 to login.\n2 to open a NewBank Account.\n";
+  public static final String PASSWORD_RULES_MSG =
+          "\n* Password length should be between 9 to 15 characters.\n"
+          + "* Password should not contain any spaces.\n"
+          + "* Password should contain at least one digit(0-9).\n"
+          + "* Password should contain at least one lowercase letter(a-z).\n"
+          + "* Password should contain at least one uppercase letter(A-Z).\n"
+          + "* Password should contain at least one special character ( @, #, %, &, !, $, etc….).\n"
+          + "\nEnter Password";
+  public static final String INVALID_PASSWORD_MSG =
+          "\nInvalid Password\n"
+          + "\nYour password did not match the security requirements.\n"
+          + "\nAccount was not created, you will be returned to the menu.\n";
+
+  private static final Pattern PASSWORD_PATTERN = Pattern.compile(
+          "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!])(?=\\S+$).{8,15}$", Pattern.CASE_INSENSITIVE);
 
   private NewBank bank;
+  private BufferedInputStream raw;
+  private OutputStream rawOut;
   private BufferedReader in;
   private PrintWriter out;
 
   public NewBankClientHandler(Socket s) throws IOException {
     bank = NewBank.getBank();
-    in = new BufferedReader(new InputStreamReader(s.getInputStream()));
-    out = new PrintWriter(s.getOutputStream(), true);
+    // Binary clients are told apart by their first bytes, peeked from the stream before the reader gets it.
+    raw = new BufferedInputStream(s.getInputStream());
+    rawOut = s.getOutputStream();
+    in = new BufferedReader(new InputStreamReader(raw));
+    // Flushed before waiting for the client, so responses to pipelined requests go out together.
+    out = new PrintWriter(rawOut, false);
+  }
+
+  /**
+   * Reads a line from the client, flushing the responses first unless more requests are already waiting.
+   * @return The line read or null if the client left.
+   * @throws IOException
+   */
+  private String readLine() throws IOException {
+    if (!in.ready()) {
+      out.flush();
+    }
+    return in.readLine();
   }
 
   /**
@@ -29,9 +67,9 @@ public class NewBankClientHandler extends Thread{
    */
   private CustomerID loginUser() throws IOException {
     out.println("\nEnter Username");
-    String userName = in.readLine();
+    String userName = readLine();
     out.println("\nEnter Password");
-    String password = in.readLine();
+    String password = readLine();
     out.println("\nChecking Details...");
     // Authenticate user and get customer ID token from bank for use in subsequent requests.
     return bank.checkLogInDetails(userName, password);
@@ -67,26 +105,14 @@ public class NewBankClientHandler extends Thread{
    */
   private CustomerID createNewUser() throws IOException {
     out.println("\nEnter Username");
-    String userName = in.readLine();
-    out.println(
-            "\n* Password length should be between 9 to 15 characters.\n"
-            + "* Password should not contain any spaces.\n"
-            + "* Password should contain at least one digit(0-9).\n"
-            + "* Password should contain at least one lowercase letter(a-z).\n"
-            + "* Password should contain at least one uppercase letter(A-Z).\n"
-            + "* Password should contain at least one special character ( @, #, %, &, !, $, etc….).\n"
-            + "\nEnter Password"
-    );
-    String password = in.readLine();
+    String userName = readLine();
+    out.println(PASSWORD_RULES_MSG);
+    String password = readLine();
     if (isValidPassword(password)) {
       out.println("\nValid Password");
     }
     else {
-      out.println(
-              "\nInvalid Password\n"
-              + "\nYour password did not match the security requirements.\n"
-              + "\nAccount was not created, you will be returned to the menu.\n"
-      );
+      out.println(INVALID_PASSWORD_MSG);
       return loginScreen();
     }
     return bank.addCustomer(userName, password, out);
@@ -97,16 +123,8 @@ public class NewBankClientHandler extends Thread{
    * @param password
    * @return Password meets security requirements.
    */
-  private static boolean isValidPassword(String password){
-    String regExpn =
-            "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!])(?=\\S+$).{8,15}$";
-    CharSequence inputString = password;
-    Pattern pattern = Pattern.compile(regExpn,Pattern.CASE_INSENSITIVE);
-    Matcher matcher = pattern.matcher(inputString);
-    if (matcher.matches())
-      return true;
-    else
-      return false;
+  public static boolean isValidPassword(String password){
+    return PASSWORD_PATTERN.matcher(password).matches();
   }
 
 
@@ -130,8 +148,17 @@ public class NewBankClientHandler extends Thread{
    * @throws IOException
    */
   private CustomerID loginScreen() throws IOException {
-    out.println("\nEnter:\n1 to login.\n2 to open a NewBank Account.\n");
-    String selectedOption = in.readLine();
+    out.println(LOGIN_MENU_MSG);
+    return loginOption();
+  }
+
+  /**
+   * Handles the option selected in the login menu.
+   * @return A logged in customer or null.
+   * @throws IOException
+   */
+  private CustomerID loginOption() throws IOException {
+    String selectedOption = readLine();
     if (selectedOption.equals("1")) {
       return loginUserLoop();
     } else if (selectedOption.equals("2")) {
@@ -174,20 +201,87 @@ public class NewBankClientHandler extends Thread{
   }
 
   private void processUserRequest(CustomerID customer) throws IOException {
+    RequestPipeline pipeline = null;
     while(true) {
-      String request = in.readLine();
+      String request = readLine();
+      if (request == null) {
+        return;
+      }
+      if (pipeline != null) {
+        out.print(pipeline.onLine(request));
+        continue;
+      }
+      if (request.trim().equals(RequestPipeline.COMMAND)) {
+        pipeline = new RequestPipeline(bank, customer);
+        out.println(RequestPipeline.ENABLED_MSG);
+        continue;
+      }
       System.out.println("Request from " + customer.getKey());
       String response = bank.processRequest(customer, request);
       out.println(response);
     }
   }
 
+  /**
+   * Checks whether the client opened the connection with the binary protocol magic, answering it if so.
+   * @return true if the client speaks the binary protocol.
+   * @throws IOException
+   */
+  private boolean isBinaryHandshake() throws IOException {
+    out.flush();
+    raw.mark(BinaryProtocol.MAGIC.length);
+    if (raw.read() != BinaryProtocol.MAGIC[0]) {
+      raw.reset();
+      return false;
+    }
+    byte[] magic = new byte[BinaryProtocol.MAGIC.length];
+    new DataInputStream(raw).readFully(magic, 1, magic.length - 1);
+    if (!BinaryProtocol.isMagic(magic)) {
+      throw new IOException("Unknown protocol");
+    }
+    rawOut.write(BinaryProtocol.MAGIC);
+    rawOut.flush();
+    return true;
+  }
+
+  /**
+   * Serves binary frames until the client leaves.
+   * @throws IOException
+   */
+  private void serveBinary() throws IOException {
+    BinaryProtocol protocol = new BinaryProtocol(bank, false);
+    DataInputStream frames = new DataInputStream(raw);
+    byte[] request = new byte[BinaryProtocol.MAX_FRAME_LENGTH];
+    while (true) {
+      int length;
+      try {
+        length = frames.readInt();
+      } catch (EOFException e) {
+        return;
+      }
+      if (length <= 0 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+        throw new IOException("Invalid frame length " + length);
+      }
+      frames.readFully(request, 0, length);
+      ByteBuffer response = protocol.handle(ByteBuffer.wrap(request, 0, length));
+      rawOut.write(response.array(), response.arrayOffset() + response.position(), response.remaining());
+      if (raw.available() == 0) {
+        rawOut.flush();
+      }
+    }
+  }
+
   /**
    * Handles the user interface
    */
   public void run() {
     try {
-      CustomerID customer = loginScreen();
+      out.println(LOGIN_MENU_MSG);
+      if (isBinaryHandshake()) {
+        serveBinary();
+        return;
+      }
+      CustomerID customer = loginOption();
       // After the user is authenticated, get requests from the user and process them.
       processUserRequest(customer);
     } catch (IOException e) {
@@ -3,26 +3,81 @@ package newbank.server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import newbank.server.nio.NioServer;
+import newbank.server.persistence.AccountStore;
+import newbank.server.persistence.WriteBehindCache;
 
 public class NewBankServer extends Thread{
+  public static final int DEFAULT_MAX_CONNECTIONS = 10000;
+  // At most this much work is lost on a crash, plus the latency of the database log.
+  public static final long FLUSH_INTERVAL_MILLIS = 1000;
+  public static final int MAX_PENDING_CHANGES = 1000;
 
   private ServerSocket server;
+  private final ExecutorService sessions;
+  private final Semaphore connections;
+  private final Set<Socket> openSockets = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
   public NewBankServer(int port) throws IOException {
+    this(port, SessionExecutors.threadPerSession(), DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * @param port {@code int} Port to listen on, 0 to pick any free port.
+   * @param sessions {@code ExecutorService} Executor the client sessions run on.
+   * @param maxConnections {@code int} Number of clients served at once, further clients wait to be accepted.
+   *
+   * @throws IOException If the port couldn't be bound.
+   * */
+  public NewBankServer(int port, ExecutorService sessions, int maxConnections) throws IOException {
     server = new ServerSocket(port);
+    this.sessions = sessions;
+    this.connections = new Semaphore(maxConnections);
+  }
+
+  public int getLocalPort() {
+    return server.getLocalPort();
   }
 
   public void run() {
-    // starts up a new client handler thread to receive incoming connections and process requests
+    // runs a client handler session for every incoming connection
     System.out.println("New Bank Server listening on " + server.getLocalPort());
     try {
       while(true) {
-        Socket s = server.accept();
-        NewBankClientHandler clientHandler = new NewBankClientHandler(s);
-        clientHandler.start();
+        connections.acquire();
+        Socket s;
+        try {
+          s = server.accept();
+        } catch (IOException e) {
+          connections.release();
+          throw e;
+        }
+        openSockets.add(s);
+        try {
+          sessions.execute(() -> serve(s));
+        } catch (RejectedExecutionException e) {
+          // The sessions are shut down: the client is dropped and its permit given back.
+          openSockets.remove(s);
+          try {
+            s.close();
+          } catch (IOException closing) {
+            closing.printStackTrace();
+          }
+          connections.release();
+        }
       }
     } catch (IOException e) {
-      e.printStackTrace();
+      if (!server.isClosed()) { e.printStackTrace(); }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
     finally {
       try {
@@ -34,8 +89,88 @@ public class NewBankServer extends Thread{
     }
   }
 
+  /**
+   * Stops accepting connections and gives the open sessions some time to end before closing them.
+   *
+   * @param timeoutMillis {@code long} Time to wait for the sessions.
+   * */
+  public void shutdown(long timeoutMillis) {
+    try {
+      server.close();
+      sessions.shutdown();
+      if (!sessions.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        for (Socket s: openSockets) {
+          s.close();
+        }
+        sessions.shutdownNow();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void serve(Socket s) {
+    try {
+      new NewBankClientHandler(s).run();
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      openSockets.remove(s);
+      try {
+        s.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      connections.release();
+    }
+  }
+
+  /**
+   * Starts the server on port 14002.
+   * By default every client gets its own thread. Passing "virtual" runs every client on a virtual thread,
+   * or on a bounded pool before Java 21, the number that follows being the connection limit. Passing "nio",
+   * optionally followed by a number of event loops, serves all the clients from a few threads through
+   * non-blocking sockets instead.
+   *
+   * @param args {@code String[]} [blocking|virtual|nio] [connection limit|event loops]
+   * */
   public static void main(String[] args) throws IOException {
+    int port = 14002;
+    String mode = args.length > 0 ? args[0] : "blocking";
+    // The accounts are read back before serving any client and saved in the background from then on.
+    String dataPath = System.getProperty("newbank.data", String.format("%s/.newBankDatabase/", System.getProperty("user.dir")));
+    WriteBehindCache cache = new WriteBehindCache(AccountStore.open(dataPath), FLUSH_INTERVAL_MILLIS, MAX_PENDING_CHANGES);
+    NewBank.getBank().load(cache);
+    if (mode.equals("nio")) {
+      int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+      NioServer nioServer = new NioServer(port, loops);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        nioServer.shutdown();
+        closeCache(cache);
+      }));
+      nioServer.start();
+      return;
+    }
+    int maxConnections = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_CONNECTIONS;
+    ExecutorService sessions = mode.equals("virtual")
+            ? SessionExecutors.virtualThreads(maxConnections)
+            : SessionExecutors.threadPerSession();
     // starts a new NewBankServer thread on a specified port number
-    new NewBankServer(14002).start();
+    NewBankServer bankServer = new NewBankServer(port, sessions, maxConnections);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      bankServer.shutdown(5000);
+      closeCache(cache);
+    }));
+    bankServer.start();
+  }
+
+  private static void closeCache(WriteBehindCache cache) {
+    try {
+      cache.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 }
@@ -0,0 +1,109 @@
+package newbank.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RequestPipeline class is the pipelined mode of a logged in session, entered with the PIPELINE command.
+ *
+ * Every request starts with an id chosen by the client, e.g. {@code 7 MOVE 100 Main Savings}, and clients
+ * don't wait for a response before sending the next request. Every response starts with a header line
+ * holding the id and the number of lines that follow, e.g. {@code #7 1}. Requests between
+ * {@code <id> BATCH} and {@code END} run in one dispatch; the batch itself is answered once all its
+ * responses are sent. A batch is held in memory until its END, so it can't hold more than
+ * {@code MAX_BATCH_SIZE} requests: the batch is answered with a FAIL as soon as it goes over, and
+ * its requests are dropped up to its END.
+ * */
+public class RequestPipeline {
+  public static final String COMMAND = "PIPELINE";
+  public static final String ENABLED_MSG = "PIPELINE ON";
+  public static final int MAX_BATCH_SIZE = 1000;
+  public static final String BATCH_TOO_LARGE_MSG = String.format("FAIL: A BATCH CAN'T HOLD MORE THAN %d REQUESTS", MAX_BATCH_SIZE);
+
+  private final NewBank bank;
+  private final CustomerID customer;
+  private String batchId = null;
+  // The batch went over MAX_BATCH_SIZE and was answered: its lines are dropped up to its END.
+  private boolean dropping = false;
+  private final ArrayList<String> batchIds = new ArrayList<>();
+  private final ArrayList<String> batchRequests = new ArrayList<>();
+
+  public RequestPipeline(NewBank bank, CustomerID customer) {
+    this.bank = bank;
+    this.customer = customer;
+  }
+
+  /**
+   * It processes a line sent by the client.
+   *
+   * @param line {@code String} Tagged request, BATCH or END.
+   *
+   * @return {@code String} Tagged responses to send to the client, empty while a batch is being read.
+   * */
+  public String onLine(String line) {
+    String request = line.trim();
+    if (request.isEmpty()) { return ""; }
+    if (this.batchId != null && request.equals("END")) {
+      return this.runBatch();
+    }
+    if (this.dropping) {
+      if (request.equals("END")) { this.dropping = false; }
+      return "";
+    }
+    int space = request.indexOf(' ');
+    String id = space < 0 ? request : request.substring(0, space);
+    String command = space < 0 ? "" : request.substring(space + 1);
+    if (this.batchId != null) {
+      if (this.batchRequests.size() == MAX_BATCH_SIZE) {
+        return this.dropBatch();
+      }
+      this.batchIds.add(id);
+      this.batchRequests.add(command);
+      return "";
+    }
+    if (command.trim().equals("BATCH")) {
+      this.batchId = id;
+      return "";
+    }
+    StringBuilder out = new StringBuilder();
+    appendResponse(out, id, this.bank.processRequest(this.customer, command));
+    return out.toString();
+  }
+
+  private String runBatch() {
+    List<String> responses = this.bank.processBatch(this.customer, this.batchRequests);
+    StringBuilder out = new StringBuilder();
+    for (int i = 0; i < responses.size(); i++) {
+      appendResponse(out, this.batchIds.get(i), responses.get(i));
+    }
+    appendResponse(out, this.batchId, String.format("BATCH DONE %d", responses.size()));
+    this.batchId = null;
+    this.batchIds.clear();
+    this.batchRequests.clear();
+    return out.toString();
+  }
+
+  private String dropBatch() {
+    StringBuilder out = new StringBuilder();
+    appendResponse(out, this.batchId, BATCH_TOO_LARGE_MSG);
+    this.batchId = null;
+    this.batchIds.clear();
+    this.batchRequests.clear();
+    this.dropping = true;
+    return out.toString();
+  }
+
+  /**
+   * Appends a response preceded by its header.
+   * */
+  private static void appendResponse(StringBuilder out, String id, String response) {
+    int end = response.length();
+    while (end > 0 && response.charAt(end - 1) == '\n') { end--; }
+    int lines = 1;
+    for (int i = 0; i < end; i++) {
+      if (response.charAt(i) == '\n') { lines++; }
+    }
+    out.append('#').append(id).append(' ').append(lines).append('\n');
+    out.append(response, 0, end).append('\n');
+  }
+}
@@ -0,0 +1,65 @@
+package newbank.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SessionExecutors class builds the executors {@code NewBankServer} runs client sessions on.
+ * */
+public final class SessionExecutors {
+
+  private SessionExecutors() {}
+
+  /**
+   * A platform thread per session, the way the server always worked.
+   *
+   * @return {@code ExecutorService} the executor.
+   * */
+  public static ExecutorService threadPerSession() {
+    return Executors.newCachedThreadPool(namedThreads());
+  }
+
+  /**
+   * A virtual thread per session, so a blocked session doesn't hold a platform thread.
+   * Virtual threads need Java 21, on older JDKs a bounded pool is returned instead.
+   *
+   * @param maxSessions {@code int} Size of the pool used when virtual threads aren't available.
+   *
+   * @return {@code ExecutorService} the executor.
+   * */
+  public static ExecutorService virtualThreads(int maxSessions) {
+    try {
+      // Looked up at runtime so the server still builds for Java 8.
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      System.out.println("Virtual threads aren't available, using a bounded thread pool");
+      return bounded(maxSessions);
+    }
+  }
+
+  /**
+   * A pool of at most {@code maxSessions} platform threads, idle threads being released after a minute.
+   *
+   * @param maxSessions {@code int} Maximum number of threads.
+   *
+   * @return {@code ExecutorService} the executor.
+   * */
+  public static ExecutorService bounded(int maxSessions) {
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(maxSessions, maxSessions, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), namedThreads());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  private static ThreadFactory namedThreads() {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> new Thread(runnable, "newbank-session-" + count.incrementAndGet());
+  }
+}
@@ -0,0 +1,72 @@
+package newbank.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The StripedLocks class maps keys to a fixed set of read-write locks.
+ *
+ * Keys sharing a stripe share its lock, so the memory used doesn't grow with the number of customers.
+ * It counts how many acquisitions had to wait for another thread.
+ * */
+class StripedLocks {
+  private final ReentrantReadWriteLock[] stripes;
+  private final AtomicLong acquisitions = new AtomicLong();
+  private final AtomicLong contended = new AtomicLong();
+
+  /**
+   * @param count {@code int} Minimum number of stripes, rounded up to a power of two.
+   * */
+  StripedLocks(int count) {
+    int size = Integer.highestOneBit(Math.max(1, count - 1)) << 1;
+    this.stripes = new ReentrantReadWriteLock[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  /**
+   * Acquires the read lock of the stripe of a key.
+   *
+   * @param key {@code String} Key to lock.
+   *
+   * @return {@code Lock} the lock held, to be unlocked by the caller.
+   * */
+  Lock read(String key) {
+    return this.acquire(this.stripes[this.stripeOf(key)].readLock());
+  }
+
+  /**
+   * Acquires the write lock of the stripe of a key.
+   *
+   * @param key {@code String} Key to lock.
+   *
+   * @return {@code Lock} the lock held, to be unlocked by the caller.
+   * */
+  Lock write(String key) {
+    return this.acquire(this.stripes[this.stripeOf(key)].writeLock());
+  }
+
+  long getAcquisitions() {
+    return this.acquisitions.get();
+  }
+
+  long getContended() {
+    return this.contended.get();
+  }
+
+  private Lock acquire(Lock lock) {
+    this.acquisitions.incrementAndGet();
+    if (!lock.tryLock()) {
+      this.contended.incrementAndGet();
+      lock.lock();
+    }
+    return lock;
+  }
+
+  private int stripeOf(String key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (this.stripes.length - 1);
+  }
+}
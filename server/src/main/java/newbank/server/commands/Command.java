@@ -0,0 +1,30 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+
+/**
+ * The Command interface is a verb of the text protocol, e.g. MOVE.
+ *
+ * Commands are kept by a {@code CommandRegistry}, which the bank asks for the command of every request.
+ * */
+public interface Command {
+  /**
+   * @return {@code String} Verb the requests of this command start with.
+   * */
+  String getName();
+
+  /**
+   * @return {@code boolean} true if the command adds or removes accounts or moves money between them, so it needs the customer alone.
+   * */
+  boolean changesAccounts();
+
+  /**
+   * It will run the command for a customer.
+   *
+   * @param customer {@code Customer} Customer session that is interacting right now.
+   * @param tokens {@code Tokens} Request, the verb being the first token.
+   *
+   * @return {@code String} Response to be sent to the client.
+   * */
+  String execute(Customer customer, Tokens tokens);
+}
@@ -0,0 +1,60 @@
+package newbank.server.commands;
+
+import java.util.Arrays;
+
+/**
+ * The CommandRegistry class finds the command of a request.
+ *
+ * The verb of the request is compared in place to the registered commands, so no string is made to
+ * look it up. There are a handful of verbs, a scan is cheaper than hashing a copy of the token.
+ * Registering copies the commands, requests being looked up never wait.
+ * */
+public class CommandRegistry {
+  private volatile Command[] commands = new Command[0];
+
+  /**
+   * @return {@code CommandRegistry} Registry of the commands of the text protocol.
+   * */
+  public static CommandRegistry defaults() {
+    CommandRegistry registry = new CommandRegistry();
+    registry.register(new ShowMyAccountsCommand());
+    registry.register(new NewAccountCommand());
+    registry.register(new HelpCommand());
+    registry.register(new MoveCommand());
+    registry.register(new PayCommand());
+    return registry;
+  }
+
+  /**
+   * Adds a command, replacing the command registered under the same verb if any.
+   *
+   * @param command {@code Command} Command to add.
+   * */
+  public synchronized void register(Command command) {
+    Command[] current = this.commands;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].getName().equals(command.getName())) {
+        Command[] replaced = current.clone();
+        replaced[i] = command;
+        this.commands = replaced;
+        return;
+      }
+    }
+    Command[] grown = Arrays.copyOf(current, current.length + 1);
+    grown[current.length] = command;
+    this.commands = grown;
+  }
+
+  /**
+   * @param tokens {@code Tokens} Request, the verb being the first token.
+   *
+   * @return {@code Command} Command of the request, null if the verb is unknown or the request blank.
+   * */
+  public Command find(Tokens tokens) {
+    if (tokens.size() == 0) { return null; }
+    for (Command command: this.commands) {
+      if (tokens.is(0, command.getName())) { return command; }
+    }
+    return null;
+  }
+}
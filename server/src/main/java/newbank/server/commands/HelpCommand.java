@@ -0,0 +1,24 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+import newbank.server.NewBankClientHandler;
+
+/**
+ * HELP: lists the available commands.
+ * */
+public class HelpCommand implements Command {
+  @Override
+  public String getName() {
+    return "HELP";
+  }
+
+  @Override
+  public boolean changesAccounts() {
+    return false;
+  }
+
+  @Override
+  public String execute(Customer customer, Tokens tokens) {
+    return NewBankClientHandler.printHelp();
+  }
+}
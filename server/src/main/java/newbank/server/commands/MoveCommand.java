@@ -0,0 +1,60 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+
+/**
+ * MOVE &lt;Amount&gt; &lt;From&gt; &lt;To&gt;: moves money between the accounts of the customer.
+ * */
+public class MoveCommand implements Command {
+  @Override
+  public String getName() {
+    return "MOVE";
+  }
+
+  /**
+   * A transfer debits and then credits: readers of the accounts must not see it half done.
+   * */
+  @Override
+  public boolean changesAccounts() {
+    return true;
+  }
+
+  /**
+   * Parse and excute an instruction to move money between accounts
+   *
+   * @param customer the logged in customer
+   * @param tokens the command line arguments provided by the user
+   * @return a string detailing if the transfer was successful or an error message
+   */
+  @Override
+  public String execute(Customer customer, Tokens tokens) {
+    // Ensure the user has entered the correct number of arguments
+    if (tokens.size() != 4){
+      return "FAIL: wrong number of arguments.\nPlease try again";
+    }
+
+    // Convert the amount to an integer
+    int amount;
+    try{
+      amount = tokens.getInt(1);
+    }
+    catch (NumberFormatException ex){
+      return "FAIL: invalid number for amount\nPlease try again";
+    }
+
+    // Check the transfer amount is not negative
+    if (amount < 0) {
+      return "FAIL: invalid transfer amount\nPlease try again";
+    }
+
+    // Try to move the customers money
+    String errorMessage = customer.moveMoneyBetweenAccounts(amount, tokens.getString(2), tokens.getString(3));
+
+    // Inform the user of the transfer results
+    if (errorMessage == null) {
+      return "SUCCESS, Anything else?";
+    } else {
+      return String.format("FAIL: %s\nPlease try again", errorMessage);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+import newbank.server.NewBank;
+
+/**
+ * NEWACCOUNT &lt;Name&gt;: creates an account under the passed name for the customer.
+ * */
+public class NewAccountCommand implements Command {
+  @Override
+  public String getName() {
+    return "NEWACCOUNT";
+  }
+
+  @Override
+  public boolean changesAccounts() {
+    return true;
+  }
+
+  @Override
+  public String execute(Customer customer, Tokens tokens) {
+    if (tokens.size() == 1) {
+      return NewBank.NOT_ACCOUNT_NAME_MSG;
+    }
+    String name = tokens.getString(1);
+    try {
+      customer.addAccount(name, 1000.0);
+      return String.format("'%s' %s. %s", name, NewBank.ACCOUNT_CREATED_SUCCESSFULLY_MSG, NewBank.ANYTHING_ELSE_MSG);
+    } catch (Customer.AccountAlreadyExists error) {
+      System.out.printf("Error: %s", error.getMessage());
+      return NewBank.ACCOUNT_ALREADY_EXISTS_MSG;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+
+/**
+ * PAY &lt;Person/Company&gt; &lt;Amount&gt;: not implemented yet.
+ * */
+public class PayCommand implements Command {
+  @Override
+  public String getName() {
+    return "PAY";
+  }
+
+  @Override
+  public boolean changesAccounts() {
+    return false;
+  }
+
+  @Override
+  public String execute(Customer customer, Tokens tokens) {
+    return "PAY PLACEHOLDER";
+  }
+}
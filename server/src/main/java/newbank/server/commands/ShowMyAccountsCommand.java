@@ -0,0 +1,23 @@
+package newbank.server.commands;
+
+import newbank.server.Customer;
+
+/**
+ * SHOWMYACCOUNTS: lists the accounts of the customer with their balance.
+ * */
+public class ShowMyAccountsCommand implements Command {
+  @Override
+  public String getName() {
+    return "SHOWMYACCOUNTS";
+  }
+
+  @Override
+  public boolean changesAccounts() {
+    return false;
+  }
+
+  @Override
+  public String execute(Customer customer, Tokens tokens) {
+    return customer.accountsToString();
+  }
+}
@@ -0,0 +1,111 @@
+package newbank.server.commands;
+
+/**
+ * The Tokens class splits a request on whitespace without copying it.
+ *
+ * Only the bounds of the tokens are kept; a token becomes a {@code String} when a command asks for it
+ * and numbers are parsed straight from the request.
+ * */
+public class Tokens {
+  private final String text;
+  private int[] bounds = new int[8];
+  private int count = 0;
+
+  private Tokens(String text) {
+    this.text = text;
+  }
+
+  /**
+   * @param request {@code String} Request sent to the server.
+   *
+   * @return {@code Tokens} Tokens of the request, none if it's blank.
+   * */
+  public static Tokens parse(String request) {
+    Tokens tokens = new Tokens(request);
+    int length = request.length();
+    int i = 0;
+    while (i < length) {
+      while (i < length && isSpace(request.charAt(i))) { i++; }
+      if (i == length) { break; }
+      int start = i;
+      while (i < length && !isSpace(request.charAt(i))) { i++; }
+      tokens.add(start, i);
+    }
+    return tokens;
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+  }
+
+  private void add(int start, int end) {
+    if (this.count * 2 == this.bounds.length) {
+      int[] grown = new int[this.bounds.length * 2];
+      System.arraycopy(this.bounds, 0, grown, 0, this.bounds.length);
+      this.bounds = grown;
+    }
+    this.bounds[this.count * 2] = start;
+    this.bounds[this.count * 2 + 1] = end;
+    this.count++;
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * Checks a token against a word without copying the token.
+   *
+   * @param index {@code int} Position of the token.
+   * @param word {@code String} Word to compare to.
+   *
+   * @return {@code boolean} true if the token is the word.
+   * */
+  public boolean is(int index, String word) {
+    int start = this.bounds[index * 2];
+    int length = this.bounds[index * 2 + 1] - start;
+    return length == word.length() && this.text.regionMatches(start, word, 0, length);
+  }
+
+  public String getString(int index) {
+    return this.text.substring(this.bounds[index * 2], this.bounds[index * 2 + 1]);
+  }
+
+  /**
+   * Parses a token as {@code Integer.parseInt} would.
+   *
+   * @param index {@code int} Position of the token.
+   *
+   * @return {@code int} Value of the token.
+   * @throws NumberFormatException If the token is not an int.
+   * */
+  public int getInt(int index) {
+    int start = this.bounds[index * 2];
+    int end = this.bounds[index * 2 + 1];
+    boolean negative = false;
+    char first = this.text.charAt(start);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      start++;
+    }
+    if (start == end) {
+      throw new NumberFormatException(this.getString(index));
+    }
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      int digit = this.text.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException(this.getString(index));
+      }
+      value = value * 10 + digit;
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        throw new NumberFormatException(this.getString(index));
+      }
+    }
+    if (negative) { value = -value; }
+    if (value > Integer.MAX_VALUE) {
+      throw new NumberFormatException(this.getString(index));
+    }
+    return (int) value;
+  }
+}
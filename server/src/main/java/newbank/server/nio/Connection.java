@@ -0,0 +1,174 @@
+package newbank.server.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import newbank.server.BinaryProtocol;
+
+/**
+ * The Connection class holds the buffers of one client of the {@code NioServer}.
+ *
+ * Bytes read are split into lines which are handed to the {@code Session}. The responses to all the
+ * lines of a read are sent in one write. Responses the socket can't take yet are queued and the
+ * connection waits to be writable to send them.
+ *
+ * A client opening with the {@code BinaryProtocol} magic is served binary frames instead. They are
+ * decoded where they were read and their responses are written from the protocol's direct buffer.
+ * */
+class Connection {
+  // Large enough for a whole binary frame with its length.
+  private static final int BUFFER_SIZE = 8192;
+  private static final int MAX_LINE_LENGTH = 8192;
+
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final Session session;
+  private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+  private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+  private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+  private boolean negotiated = false;
+  private BinaryProtocol binary = null;
+
+  Connection(SocketChannel channel, SelectionKey key, Session session) {
+    this.channel = channel;
+    this.key = key;
+    this.session = session;
+  }
+
+  void start() throws IOException {
+    this.send(this.session.start());
+  }
+
+  /**
+   * Reads what the client sent and processes every complete line.
+   *
+   * @throws IOException If the socket failed or the client sent a line too long.
+   * */
+  void read() throws IOException {
+    int read = this.channel.read(this.input);
+    if (read < 0) {
+      this.close();
+      return;
+    }
+    this.input.flip();
+    if (!this.negotiated && !this.negotiate()) {
+      this.input.compact();
+      return;
+    }
+    if (this.binary != null) {
+      this.readFrames();
+      return;
+    }
+    StringBuilder responses = new StringBuilder();
+    while (this.input.hasRemaining()) {
+      byte next = this.input.get();
+      if (next != '\n') {
+        if (this.line.size() >= MAX_LINE_LENGTH) { throw new IOException("Line too long"); }
+        this.line.write(next);
+        continue;
+      }
+      String text = new String(this.line.toByteArray(), StandardCharsets.UTF_8);
+      this.line.reset();
+      if (text.endsWith("\r")) { text = text.substring(0, text.length() - 1); }
+      responses.append(this.session.onLine(text));
+    }
+    this.input.clear();
+    this.send(responses.toString());
+  }
+
+  /**
+   * Tells a binary client apart from a text one by the first byte it sent.
+   *
+   * @return {@code boolean} false if the magic is not complete yet.
+   * */
+  private boolean negotiate() throws IOException {
+    if (!this.input.hasRemaining()) { return false; }
+    if (this.input.get(0) != BinaryProtocol.MAGIC[0]) {
+      this.negotiated = true;
+      return true;
+    }
+    if (this.input.remaining() < BinaryProtocol.MAGIC.length) { return false; }
+    byte[] magic = new byte[BinaryProtocol.MAGIC.length];
+    this.input.get(magic);
+    if (!BinaryProtocol.isMagic(magic)) { throw new IOException("Unknown protocol"); }
+    this.binary = new BinaryProtocol(this.session.getBank(), true);
+    this.negotiated = true;
+    this.send(ByteBuffer.wrap(BinaryProtocol.MAGIC));
+    return true;
+  }
+
+  /**
+   * Runs every complete frame of the input buffer, keeping a partial one for the next read.
+   * */
+  private void readFrames() throws IOException {
+    while (this.input.remaining() >= 4) {
+      int start = this.input.position();
+      int length = this.input.getInt(start);
+      if (length <= 0 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+        throw new IOException("Invalid frame length " + length);
+      }
+      if (this.input.remaining() < 4 + length) { break; }
+      ByteBuffer frame = this.input.duplicate();
+      frame.position(start + 4);
+      frame.limit(start + 4 + length);
+      this.send(this.binary.handle(frame));
+      this.input.position(start + 4 + length);
+    }
+    this.input.compact();
+  }
+
+  /**
+   * Writes the queued responses, waiting for the socket to be writable if it can't take them all.
+   *
+   * @throws IOException If the socket failed.
+   * */
+  void write() throws IOException {
+    while (!this.output.isEmpty()) {
+      ByteBuffer next = this.output.peek();
+      this.channel.write(next);
+      if (next.hasRemaining()) {
+        this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+      this.output.poll();
+    }
+    this.key.interestOps(SelectionKey.OP_READ);
+  }
+
+  void close() {
+    this.key.cancel();
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void send(String text) throws IOException {
+    if (text.isEmpty()) { return; }
+    this.output.add(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    if (this.output.size() == 1) {
+      this.write();
+    }
+  }
+
+  /**
+   * Sends bytes that are only valid until the next call, copying what the socket can't take yet.
+   * */
+  private void send(ByteBuffer bytes) throws IOException {
+    if (this.output.isEmpty()) {
+      this.channel.write(bytes);
+      if (!bytes.hasRemaining()) { return; }
+    }
+    ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+    copy.put(bytes);
+    copy.flip();
+    this.output.add(copy);
+    this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+  }
+}
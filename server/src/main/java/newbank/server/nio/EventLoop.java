@@ -0,0 +1,116 @@
+package newbank.server.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import newbank.server.NewBank;
+
+/**
+ * The EventLoop class serves many connections from a single thread through a {@code Selector}.
+ *
+ * Connections are handed over by the acceptor thread, they are registered by the loop itself
+ * the next time it wakes up. A connection failing, even with an unexpected exception, is closed
+ * alone: the loop goes on serving the others.
+ * */
+class EventLoop extends Thread {
+  private final NewBank bank;
+  private final Selector selector;
+  private final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+  private volatile boolean running = true;
+
+  EventLoop(NewBank bank, int number) throws IOException {
+    super("newbank-nio-loop-" + number);
+    this.bank = bank;
+    this.selector = Selector.open();
+  }
+
+  /**
+   * Hands a connection over to the loop.
+   *
+   * @param channel {@code SocketChannel} Accepted connection.
+   * */
+  void register(SocketChannel channel) {
+    this.pending.add(channel);
+    this.selector.wakeup();
+  }
+
+  void shutdown() {
+    this.running = false;
+    this.selector.wakeup();
+  }
+
+  public void run() {
+    try {
+      while (this.running) {
+        this.selector.select();
+        this.registerPending();
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          this.process(key);
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      e.printStackTrace();
+    } finally {
+      this.closeAll();
+    }
+  }
+
+  private void registerPending() {
+    SocketChannel channel;
+    while ((channel = this.pending.poll()) != null) {
+      try {
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+        Connection connection = new Connection(channel, key, new Session(this.bank));
+        key.attach(connection);
+        connection.start();
+      } catch (IOException | RuntimeException e) {
+        e.printStackTrace();
+        try {
+          channel.close();
+        } catch (IOException ignored) {
+          // The connection is dropped anyway.
+        }
+      }
+    }
+  }
+
+  private void process(SelectionKey key) {
+    Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isValid() && key.isWritable()) {
+        connection.write();
+      }
+      if (key.isValid() && key.isReadable()) {
+        connection.read();
+      }
+    } catch (IOException e) {
+      connection.close();
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+      connection.close();
+    }
+  }
+
+  private void closeAll() {
+    for (SelectionKey key: this.selector.keys()) {
+      Connection connection = (Connection) key.attachment();
+      if (connection != null) {
+        connection.close();
+      }
+    }
+    try {
+      this.selector.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package newbank.server.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import newbank.server.NewBank;
+
+/**
+ * The NioServer class is the non-blocking alternative to {@code NewBankServer}.
+ *
+ * Instead of a thread per client, it accepts connections on its own thread and spreads them over a
+ * small pool of {@code EventLoop} threads, so idle clients only cost their buffers.
+ * */
+public class NioServer extends Thread {
+  private final ServerSocketChannel server;
+  private final EventLoop[] loops;
+
+  /**
+   * It will bind the server to a port.
+   *
+   * @param port {@code int} Port to listen on, 0 to pick any free port.
+   * @param loopCount {@code int} Number of event loop threads.
+   *
+   * @throws IOException If the port couldn't be bound.
+   * */
+  public NioServer(int port, int loopCount) throws IOException {
+    this(port, loopCount, NewBank.getBank());
+  }
+
+  /**
+   * It will bind the server to a port, serving the clients from a bank other than the shared one.
+   *
+   * @param port {@code int} Port to listen on, 0 to pick any free port.
+   * @param loopCount {@code int} Number of event loop threads.
+   * @param bank {@code NewBank} Bank the sessions send their requests to.
+   *
+   * @throws IOException If the port couldn't be bound.
+   * */
+  public NioServer(int port, int loopCount, NewBank bank) throws IOException {
+    super("newbank-nio-acceptor");
+    this.server = ServerSocketChannel.open();
+    this.server.bind(new InetSocketAddress(port));
+    this.loops = new EventLoop[Math.max(1, loopCount)];
+    for (int i = 0; i < this.loops.length; i++) {
+      this.loops[i] = new EventLoop(bank, i);
+    }
+  }
+
+  public int getLocalPort() {
+    return this.server.socket().getLocalPort();
+  }
+
+  public void run() {
+    System.out.printf("New Bank Server listening on %d with %d event loops\n", this.getLocalPort(), this.loops.length);
+    for (EventLoop loop: this.loops) {
+      loop.start();
+    }
+    try {
+      int next = 0;
+      while (true) {
+        SocketChannel channel = this.server.accept();
+        this.loops[next].register(channel);
+        next = (next + 1) % this.loops.length;
+      }
+    } catch (AsynchronousCloseException e) {
+      // The server was shut down.
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      this.shutdown();
+    }
+  }
+
+  /**
+   * It stops accepting connections and closes the open ones.
+   * */
+  public void shutdown() {
+    try {
+      this.server.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    for (EventLoop loop: this.loops) {
+      loop.shutdown();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package newbank.server.nio;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.server.NewBankClientHandler;
+import newbank.server.RequestPipeline;
+
+/**
+ * The Session class is the login and menu flow of {@code NewBankClientHandler} written as a state machine.
+ *
+ * It doesn't read from the connection: the event loop feeds it one line at a time and sends back
+ * the text returned, so a session only holds a state while it waits for its client.
+ * */
+public class Session {
+  enum State {
+    MENU,
+    LOGIN_USERNAME,
+    LOGIN_PASSWORD,
+    NEW_USERNAME,
+    NEW_PASSWORD,
+    REQUESTS,
+  }
+
+  private final NewBank bank;
+  private State state = State.MENU;
+  private String userName;
+  private CustomerID customer;
+  private RequestPipeline pipeline;
+
+  public Session(NewBank bank) {
+    this.bank = bank;
+  }
+
+  /**
+   * It starts the session.
+   *
+   * @return {@code String} Text to send to the client.
+   * */
+  public String start() {
+    this.state = State.MENU;
+    return NewBankClientHandler.LOGIN_MENU_MSG + "\n";
+  }
+
+  /**
+   * It moves the session forward with a line sent by the client.
+   *
+   * @param line {@code String} Line received, without its line break.
+   *
+   * @return {@code String} Text to send to the client, possibly empty.
+   * */
+  public String onLine(String line) {
+    StringWriter buffer = new StringWriter();
+    PrintWriter out = new PrintWriter(buffer);
+    switch (this.state) {
+      case MENU:
+        if (line.equals("1")) {
+          out.println("\nEnter Username");
+          this.state = State.LOGIN_USERNAME;
+        } else if (line.equals("2")) {
+          out.println("\nEnter Username");
+          this.state = State.NEW_USERNAME;
+        } else {
+          out.println("\nInvalid option selected.");
+          out.println(NewBankClientHandler.LOGIN_MENU_MSG);
+        }
+        break;
+      case LOGIN_USERNAME:
+        this.userName = line;
+        out.println("\nEnter Password");
+        this.state = State.LOGIN_PASSWORD;
+        break;
+      case LOGIN_PASSWORD:
+        out.println("\nChecking Details...");
+        this.customer = this.bank.checkLogInDetails(this.userName, line);
+        if (this.customer == null) {
+          out.println("\nIncorrect username. Please try again.");
+          out.println("\nEnter Username");
+          this.state = State.LOGIN_USERNAME;
+        } else {
+          out.println("\nLogin successful, welcome to NewBank!");
+          out.println(NewBankClientHandler.printHelp());
+          this.state = State.REQUESTS;
+        }
+        break;
+      case NEW_USERNAME:
+        this.userName = line;
+        out.println(NewBankClientHandler.PASSWORD_RULES_MSG);
+        this.state = State.NEW_PASSWORD;
+        break;
+      case NEW_PASSWORD:
+        if (!NewBankClientHandler.isValidPassword(line)) {
+          out.println(NewBankClientHandler.INVALID_PASSWORD_MSG);
+          out.println(NewBankClientHandler.LOGIN_MENU_MSG);
+          this.state = State.MENU;
+        } else {
+          out.println("\nValid Password");
+          if (this.bank.addCustomer(this.userName, line, out) == null) {
+            // The username is taken, ask for another one.
+            out.println("\nEnter Username");
+            this.state = State.NEW_USERNAME;
+          } else {
+            // After the User creates a new account, he returns to to the main menu.
+            out.println(NewBankClientHandler.LOGIN_MENU_MSG);
+            this.state = State.MENU;
+          }
+        }
+        break;
+      default: // REQUESTS
+        if (this.pipeline != null) {
+          out.print(this.pipeline.onLine(line));
+        } else if (line.trim().equals(RequestPipeline.COMMAND)) {
+          this.pipeline = new RequestPipeline(this.bank, this.customer);
+          out.println(RequestPipeline.ENABLED_MSG);
+        } else {
+          System.out.println("Request from " + this.customer.getKey());
+          out.println(this.bank.processRequest(this.customer, line));
+        }
+    }
+    out.flush();
+    return buffer.toString();
+  }
+
+  NewBank getBank() {
+    return this.bank;
+  }
+
+  State getState() {
+    return this.state;
+  }
+}
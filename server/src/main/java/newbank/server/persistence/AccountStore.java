@@ -0,0 +1,186 @@
+package newbank.server.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import newbank.database.Database;
+import newbank.database.Transaction;
+import newbank.database.exceptions.*;
+import newbank.database.wal.CommitPolicy;
+import newbank.server.Account;
+import newbank.server.Customer;
+
+/**
+ * The AccountStore class maps the accounts of the customers to a table of a {@code Database}.
+ *
+ * Every account is a row of the accounts table holding its owner, so customers are rebuilt from
+ * their accounts. Rows are found by an id given by the store, indexed so updates don't scan the table.
+ * Changes are added to a {@code Transaction}, so a batch of them is written to disk at once.
+ * */
+public class AccountStore {
+  public static final String TABLE = "accounts";
+  private static final ArrayList<String> COLUMNS = new ArrayList<>(Arrays.asList(
+          "id", "owner", "name", "number", "sortCode", "pence", "opened"));
+  private static final ArrayList<Database.DATA_TYPES> TYPES = new ArrayList<>(Arrays.asList(
+          Database.DATA_TYPES.LONG, Database.DATA_TYPES.STRING, Database.DATA_TYPES.STRING,
+          Database.DATA_TYPES.INTEGER, Database.DATA_TYPES.INTEGER, Database.DATA_TYPES.LONG,
+          Database.DATA_TYPES.LONG));
+
+  private final Database database;
+  // Accounts don't override equals, so they are told apart by identity.
+  private final ConcurrentHashMap<Account, Long> ids = new ConcurrentHashMap<>();
+  private long nextId = 1;
+
+  /**
+   * @param database {@code Database} Database created or initiated, holding the accounts table or not yet.
+   * */
+  public AccountStore(Database database) {
+    this.database = database;
+    try {
+      this.database.addTable(TABLE, new ArrayList<>(COLUMNS), new ArrayList<>(TYPES));
+    } catch (TableAlreadyExistsException e) {
+      // Initiated from existing data.
+    } catch (InvalidColumnNumberException e) {
+      e.printStackTrace();
+    }
+    try {
+      this.database.createIndex(TABLE, "id");
+    } catch (TableNotFoundException | ColumnNotFound e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * It opens the database of a folder, creating it if it doesn't exist.
+   * Changes are forced to disk in the background: the store is written behind the requests already.
+   *
+   * @param path {@code String} Folder of the database, ending with a separator.
+   *
+   * @return {@code AccountStore} the store of the database.
+   * @throws IOException If the database couldn't be read.
+   * */
+  public static AccountStore open(String path) throws IOException {
+    Database database = new Database(path);
+    database.setCommitPolicy(CommitPolicy.deferred(256, 50));
+    if (new File(path).exists()) {
+      database.init();
+    } else {
+      database.create();
+    }
+    return new AccountStore(database);
+  }
+
+  /**
+   * It reads every account back and gives them to their owners.
+   *
+   * @return {@code Map<String, Customer>} Customers by username.
+   * */
+  public Map<String, Customer> load() {
+    HashMap<String, Customer> customers = new HashMap<>();
+    try {
+      this.database.query(TABLE).forEach(row -> {
+        long id = row.getLong(0);
+        Account account = new Account(row.getString(2), row.getLong(5), row.getInt(3), row.getInt(4), new Date(row.getLong(6)));
+        try {
+          customers.computeIfAbsent(row.getString(1), owner -> new Customer()).addAccount(account);
+        } catch (Customer.AccountAlreadyExists e) {
+          e.printStackTrace();
+          return;
+        }
+        this.ids.put(account, id);
+        this.nextId = Math.max(this.nextId, id + 1);
+      });
+    } catch (TableNotFoundException | ColumnNotFound | ColumnDataTypeAffinityException e) {
+      e.printStackTrace();
+    }
+    return customers;
+  }
+
+  /**
+   * @return {@code Transaction} a transaction of the database for the next changes.
+   * */
+  public Transaction begin() {
+    return this.database.beginTransaction();
+  }
+
+  /**
+   * It adds a row for an account with its current balance.
+   *
+   * @param transaction {@code Transaction} Transaction the row is added in.
+   * @param owner {@code String} Username of the customer.
+   * @param account {@code Account} Account to add.
+   * */
+  public void insert(Transaction transaction, String owner, Account account) {
+    long id;
+    synchronized (this) {
+      id = this.nextId++;
+    }
+    this.ids.put(account, id);
+    ArrayList<String> row = new ArrayList<>(Arrays.asList(
+            Long.toString(id), owner, account.getAccountName(), Integer.toString(account.getAccountNumber()),
+            Integer.toString(account.getSortCode()), Long.toString(account.getBalanceInPence()),
+            Long.toString(account.getOpenDate().getTime())));
+    try {
+      transaction.insert(TABLE, row);
+    } catch (TableNotFoundException | InvalidColumnNumberException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * It commits the changes added to a transaction.
+   *
+   * @param transaction {@code Transaction} Transaction of the changes.
+   *
+   * @throws IOException If the transaction couldn't be written, in which case none of it is.
+   * */
+  public void commit(Transaction transaction) throws IOException {
+    transaction.commit();
+  }
+
+  /**
+   * It forgets the row given to an account by {@link #insert(Transaction, String, Account)}, when the
+   * transaction of the insert wasn't written. The account is then inserted again.
+   *
+   * @param account {@code Account} Account whose insert was lost.
+   * */
+  public void forget(Account account) {
+    this.ids.remove(account);
+  }
+
+  /**
+   * It writes the current balance of an account.
+   *
+   * @param transaction {@code Transaction} Transaction the change is added in.
+   * @param account {@code Account} Account added or loaded before.
+   *
+   * @return {@code boolean} false if the account is not in the store.
+   * */
+  public boolean update(Transaction transaction, Account account) {
+    Long id = this.ids.get(account);
+    if (id == null) { return false; }
+    try {
+      transaction.update(TABLE, "id", id, "pence", account.getBalanceInPence());
+      return true;
+    } catch (TableNotFoundException | ColumnNotFound | ColumnDataTypeAffinityException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * It checkpoints and closes the database, leaving an image of the accounts the next start restores.
+   *
+   * @throws IOException If the database couldn't be written.
+   * */
+  public void close() throws IOException {
+    this.database.snapshot();
+    this.database.close();
+  }
+}
@@ -0,0 +1,237 @@
+package newbank.server.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+import newbank.database.Transaction;
+import newbank.server.Account;
+import newbank.server.AccountListener;
+import newbank.server.Customer;
+
+/**
+ * The WriteBehindCache class saves the changes of the accounts to an {@code AccountStore} in the background.
+ *
+ * Requests only mark the accounts they change: new accounts are queued and changed balances are kept
+ * in a set, by customer, so an account moved many times between two flushes is written once, with its latest
+ * balance. A flush runs every {@code flushIntervalMillis} and as soon as {@code maxPending} changes
+ * are waiting, which bounds the work lost on a crash. Every flush is one transaction of the database:
+ * it is written to disk at once and a crash keeps all of it or none.
+ *
+ * The balances of a customer are read under the lock given by {@link #setOwnerLocks(Function)}, which
+ * its transfers hold too, so a flush never saves a debit without the credit of the same transfer.
+ * */
+public class WriteBehindCache {
+  private final AccountStore store;
+  private final int maxPending;
+  // New and changed accounts by the username of their owner.
+  private final ConcurrentHashMap<String, ArrayList<Account>> opened = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, HashSet<Account>> dirty = new ConcurrentHashMap<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final ScheduledExecutorService flusher;
+  private volatile Function<String, Lock> ownerLocks = null;
+
+  /**
+   * @param store {@code AccountStore} Store the changes are written to.
+   * @param flushIntervalMillis {@code long} Longest time a change waits to be written.
+   * @param maxPending {@code int} Number of waiting changes that triggers a flush straight away.
+   * */
+  public WriteBehindCache(AccountStore store, long flushIntervalMillis, int maxPending) {
+    this.store = store;
+    this.maxPending = maxPending;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "newbank-write-behind");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * It sets the locks the balances of a customer are read under: a transfer must hold the lock of its
+   * customer, at least shared, while it debits and credits the accounts.
+   *
+   * @param ownerLocks {@code Function<String, Lock>} Acquires the exclusive lock of a username, to be unlocked by the caller.
+   * */
+  public void setOwnerLocks(Function<String, Lock> ownerLocks) {
+    this.ownerLocks = ownerLocks;
+  }
+
+  /**
+   * It reads the customers saved in the store, which are then kept up to date.
+   *
+   * @return {@code Map<String, Customer>} Customers by username.
+   * */
+  public Map<String, Customer> load() {
+    Map<String, Customer> customers = this.store.load();
+    for (Map.Entry<String, Customer> entry: customers.entrySet()) {
+      entry.getValue().setListener(this.listenerFor(entry.getKey()));
+    }
+    return customers;
+  }
+
+  /**
+   * It saves a customer that isn't in the store yet, with its accounts, and keeps it up to date.
+   * It must be called before other threads can reach the customer.
+   *
+   * @param userName {@code String} Username of the customer.
+   * @param customer {@code Customer} Customer to save.
+   * */
+  public void customerAdded(String userName, Customer customer) {
+    customer.setListener(this.listenerFor(userName));
+    for (Account account: customer.getAccounts()) {
+      this.markOpened(userName, account);
+    }
+  }
+
+  private AccountListener listenerFor(String userName) {
+    return new AccountListener() {
+      @Override
+      public void accountOpened(Account account) {
+        markOpened(userName, account);
+      }
+
+      @Override
+      public void balanceChanged(Account account) {
+        markChanged(userName, account);
+      }
+    };
+  }
+
+  private void markOpened(String owner, Account account) {
+    this.opened.compute(owner, (key, accounts) -> {
+      if (accounts == null) { accounts = new ArrayList<>(); }
+      accounts.add(account);
+      return accounts;
+    });
+    this.changeQueued();
+  }
+
+  private void markChanged(String owner, Account account) {
+    boolean[] added = new boolean[1];
+    this.dirty.compute(owner, (key, accounts) -> {
+      if (accounts == null) { accounts = new HashSet<>(); }
+      added[0] = accounts.add(account);
+      return accounts;
+    });
+    if (added[0]) {
+      this.changeQueued();
+    }
+  }
+
+  private void changeQueued() {
+    if (this.pending.incrementAndGet() == this.maxPending) {
+      this.flusher.execute(this::flush);
+    }
+  }
+
+  /**
+   * It writes the changes waiting to the store. New accounts are written first, with their current
+   * balance, so a balance changed before its account was written is not lost. The changes of each
+   * customer are taken and read under the lock of the customer, one customer at a time. If the
+   * transaction can't be written, the changes taken are put back to be written by the next flush.
+   * */
+  public synchronized void flush() {
+    this.pending.set(0);
+    Transaction transaction = this.store.begin();
+    HashMap<String, ArrayList<Account>> takenOpened = new HashMap<>();
+    HashMap<String, HashSet<Account>> takenDirty = new HashMap<>();
+    LinkedHashSet<String> owners = new LinkedHashSet<>(this.opened.keySet());
+    owners.addAll(this.dirty.keySet());
+    Function<String, Lock> locks = this.ownerLocks;
+    for (String owner: owners) {
+      Lock lock = locks != null ? locks.apply(owner) : null;
+      try {
+        ArrayList<Account> opening = this.opened.remove(owner);
+        if (opening != null) {
+          takenOpened.put(owner, opening);
+          for (Account account: opening) {
+            this.store.insert(transaction, owner, account);
+          }
+        }
+        HashSet<Account> changed = this.dirty.remove(owner);
+        if (changed != null) {
+          takenDirty.put(owner, changed);
+          for (Account account: changed) {
+            this.store.update(transaction, account);
+          }
+        }
+      } finally {
+        if (lock != null) { lock.unlock(); }
+      }
+    }
+    try {
+      this.store.commit(transaction);
+    } catch (IOException e) {
+      e.printStackTrace();
+      this.putBack(takenOpened, takenDirty);
+    }
+  }
+
+  /**
+   * Queues again the changes of a flush that couldn't be written, before the changes made since.
+   * */
+  private void putBack(HashMap<String, ArrayList<Account>> takenOpened, HashMap<String, HashSet<Account>> takenDirty) {
+    int count = 0;
+    for (Map.Entry<String, ArrayList<Account>> entry: takenOpened.entrySet()) {
+      for (Account account: entry.getValue()) {
+        this.store.forget(account);
+      }
+      count += entry.getValue().size();
+      this.opened.merge(entry.getKey(), entry.getValue(), (newer, taken) -> {
+        ArrayList<Account> accounts = new ArrayList<>(taken);
+        accounts.addAll(newer);
+        return accounts;
+      });
+    }
+    for (Map.Entry<String, HashSet<Account>> entry: takenDirty.entrySet()) {
+      count += entry.getValue().size();
+      this.dirty.merge(entry.getKey(), entry.getValue(), (newer, taken) -> {
+        HashSet<Account> accounts = new HashSet<>(taken);
+        accounts.addAll(newer);
+        return accounts;
+      });
+    }
+    this.pending.addAndGet(count);
+  }
+
+  /**
+   * @return {@code int} Number of changes waiting to be written.
+   * */
+  public int getPending() {
+    int count = 0;
+    for (ArrayList<Account> accounts: this.opened.values()) {
+      count += accounts.size();
+    }
+    for (HashSet<Account> accounts: this.dirty.values()) {
+      count += accounts.size();
+    }
+    return count;
+  }
+
+  /**
+   * It stops the background flushes, writes the changes left and closes the store.
+   *
+   * @throws IOException If the store couldn't be written.
+   * */
+  public void close() throws IOException {
+    this.flusher.shutdown();
+    try {
+      this.flusher.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.flush();
+    this.store.close();
+  }
+}
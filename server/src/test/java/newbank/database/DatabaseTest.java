@@ -0,0 +1,491 @@
+package newbank.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import newbank.database.wal.CommitPolicy;
+import org.apache.commons.io.FileUtils;
+
+import static org.junit.Assert.*;
+
+public class DatabaseTest {
+  protected String path;
+  protected Database db;
+
+  @Before
+  public void setUp() throws Exception {
+    path = Files.createTempDirectory("newBankDatabase").toString() + "/";
+    db = new Database(path);
+    db.create();
+    ArrayList<String> columns = new ArrayList<>(Arrays.asList("sender", "recipient", "amount"));
+    ArrayList<Database.DATA_TYPES> schema = new ArrayList<>(Arrays.asList(
+            Database.DATA_TYPES.STRING, Database.DATA_TYPES.STRING, Database.DATA_TYPES.DOUBLE));
+    db.addTable("transactions", columns, schema);
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Maria", "Nick", "2.0")));
+    db.insert("transactions", new ArrayList<>(Arrays.asList("John", "Maria", "5.5")));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    // Tests that reload the database close it first and drop it.
+    if (db != null) {
+      db.close();
+    }
+    FileUtils.deleteDirectory(new File(path));
+  }
+
+  @Test
+  public void testFind() throws Exception {
+    assertEquals(1, db.find("transactions", "sender", "Maria").size());
+    assertEquals("Nick", db.findOne("transactions", "sender", "Maria").get(1));
+    assertEquals(5.5, db.findOne("transactions", "recipient", "Maria").get(2));
+  }
+
+  @Test
+  public void testReadsAreServedFromMemory() throws Exception {
+    Files.delete(new File(path + "transactions.csv").toPath());
+    assertEquals("John", db.findOne("transactions", "amount", 5.5).get(0));
+  }
+
+  @Test
+  public void testUpdateIsPersisted() throws Exception {
+    assertTrue(db.update("transactions", "sender", "Maria", "amount", 99.99));
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(99.99, reloaded.findOne("transactions", "sender", "Maria").get(2));
+    assertEquals("Maria", reloaded.findOne("transactions", "sender", "John").get(1));
+    reloaded.close();
+  }
+
+  @Test
+  public void testIndexedFindAndUpdate() throws Exception {
+    db.createIndex("transactions", "sender");
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Maria", "John", "7.0")));
+    assertEquals(2, db.find("transactions", "sender", "Maria").size());
+    assertTrue(db.update("transactions", "recipient", "Maria", "sender", "Anna"));
+    assertEquals(0, db.find("transactions", "sender", "John").size());
+    assertEquals(5.5, db.findOne("transactions", "sender", "Anna").get(2));
+  }
+
+  @Test
+  public void testFindRange() throws Exception {
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    ArrayList<ArrayList<Object>> scanned = db.findRange("transactions", "amount", 2.5, 10.0);
+    db.createIndex("transactions", "amount", true);
+    ArrayList<ArrayList<Object>> indexed = db.findRange("transactions", "amount", 2.5, 10.0);
+    assertEquals(scanned, indexed);
+    assertEquals(2, indexed.size());
+    assertEquals(3.0, indexed.get(0).get(2));
+    assertEquals(5.5, indexed.get(1).get(2));
+  }
+
+  @Test
+  public void testLogIsReplayedAfterCrash() throws Exception {
+    db.update("transactions", "sender", "John", "amount", 1.5);
+    // Simulate a crash in the middle of writing the next record.
+    Files.write(new File(path + "database.wal").toPath(), new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+    assertFalse(new String(Files.readAllBytes(new File(path + "transactions.csv").toPath())).contains("John"));
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(1.5, reloaded.findOne("transactions", "sender", "John").get(2));
+    assertEquals(0, new File(path + "database.wal").length());
+    assertTrue(new String(Files.readAllBytes(new File(path + "transactions.csv").toPath())).contains("2, John, Maria, 1.5"));
+    reloaded.close();
+  }
+
+  @Test
+  public void testConcurrentInsertsAreGroupCommitted() throws Exception {
+    Database grouped = new Database(path + "grouped/");
+    grouped.setCommitPolicy(CommitPolicy.grouped(64, 5));
+    grouped.create();
+    grouped.addTable("transfers", new ArrayList<>(Arrays.asList("sender", "amount")),
+            new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.INTEGER)));
+    Thread[] writers = new Thread[8];
+    for (int i = 0; i < writers.length; i++) {
+      String sender = "writer" + i;
+      writers[i] = new Thread(() -> {
+        try {
+          for (int j = 0; j < 200; j++) {
+            grouped.insert("transfers", new ArrayList<>(Arrays.asList(sender, Integer.toString(j))));
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      writers[i].start();
+    }
+    for (Thread writer: writers) {
+      writer.join();
+    }
+    // Writers waiting at the same time share a force of the log.
+    long batches = grouped.getLogBatches();
+    assertTrue(batches > 0);
+    assertTrue(String.format("%d batches for 1600 records", batches), batches <= 1600 / 2);
+
+    Database reloaded = new Database(path + "grouped/");
+    reloaded.init();
+    assertEquals(200, reloaded.find("transfers", "sender", "writer3").size());
+    assertEquals(8, reloaded.find("transfers", "amount", 199).size());
+    reloaded.close();
+    grouped.close();
+  }
+
+  @Test
+  public void testBinaryTable() throws Exception {
+    db.addTable("accounts", new ArrayList<>(Arrays.asList("owner", "number", "balance", "open")),
+            new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.LONG,
+                    Database.DATA_TYPES.DOUBLE, Database.DATA_TYPES.BOOLEAN)), Database.STORAGE_FORMATS.BINARY);
+    db.insert("accounts", new ArrayList<>(Arrays.asList("Maria", "1234567", "1000.0", "true")));
+    db.insert("accounts", new ArrayList<>(Arrays.asList("John", "7654321", "20.5", "false")));
+    assertTrue(db.update("accounts", "number", 1234567L, "balance", 900.0));
+    db.close();
+    db = null;
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(900.0, reloaded.findOne("accounts", "owner", "Maria").get(2));
+    assertEquals("John", reloaded.findOne("accounts", "open", false).get(0));
+    assertTrue(new File(path + "accounts.bin").exists());
+    reloaded.close();
+  }
+
+  @Test
+  public void testConvertTable() throws Exception {
+    db.convertTable("transactions", Database.STORAGE_FORMATS.BINARY);
+    assertFalse(new File(path + "transactions.csv").exists());
+    assertEquals("Nick", db.findOne("transactions", "sender", "Maria").get(1));
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    db.close();
+    db = null;
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(3, reloaded.findRange("transactions", "amount", 0.0, 10.0).size());
+    assertEquals("John", reloaded.findOne("transactions", "amount", 5.5).get(0));
+    reloaded.close();
+  }
+
+  @Test
+  public void testConvertInterrupted() throws Exception {
+    db.convertTable("transactions", Database.STORAGE_FORMATS.BINARY);
+    db.close();
+    db = null;
+    // A crash after the config was written, before the CSV was removed, leaves both data files.
+    Files.write(Paths.get(path + "transactions.csv"), "index, sender, recipient, amount\n1, Old, Row, 1.0\n".getBytes());
+    assertFalse(new File(path + "config/transactions.txt.tmp").exists());
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(2, reloaded.findRange("transactions", "amount", 0.0, 10.0).size());
+    assertEquals(0, reloaded.find("transactions", "sender", "Old").size());
+    reloaded.close();
+  }
+
+  @Test
+  public void testMappedTable() throws Exception {
+    db.convertTable("transactions", Database.STORAGE_FORMATS.MAPPED_CSV);
+    assertEquals("Nick", db.findOne("transactions", "sender", "Maria").get(1));
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    // Appended rows stay on the heap until the checkpoint, the log holds them.
+    assertEquals(3, Files.readAllLines(Paths.get(path + "transactions.csv")).size());
+    assertEquals("John", db.findOne("transactions", "sender", "Anna").get(1));
+    assertTrue(db.update("transactions", "sender", "Anna", "amount", 3.5));
+    assertTrue(db.update("transactions", "sender", "John", "amount", 6.5));
+    assertEquals(6.5, db.findOne("transactions", "recipient", "Maria").get(2));
+    db.checkpoint();
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Nick", "Anna", "1.0")));
+    db.close();
+    db = null;
+
+    List<String> lines = Files.readAllLines(Paths.get(path + "transactions.csv"));
+    assertEquals(5, lines.size());
+    assertTrue(lines.get(2).endsWith("John, Maria, 6.5"));
+    assertTrue(lines.get(3).endsWith("Anna, John, 3.5"));
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(4, reloaded.findRange("transactions", "amount", 0.0, 10.0).size());
+    assertEquals("Nick", reloaded.findOne("transactions", "recipient", "Anna").get(0));
+    // Written in place, then with the file rewritten as the row gets longer.
+    assertTrue(reloaded.update("transactions", "sender", "John", "amount", 7.5));
+    reloaded.checkpoint();
+    assertTrue(Files.readAllLines(Paths.get(path + "transactions.csv")).get(2).endsWith("John, Maria, 7.5"));
+    assertTrue(reloaded.update("transactions", "sender", "John", "amount", 17.25));
+    reloaded.checkpoint();
+    lines = Files.readAllLines(Paths.get(path + "transactions.csv"));
+    assertEquals(5, lines.size());
+    assertTrue(lines.get(2).endsWith("John, Maria, 17.25"));
+    assertEquals("John", reloaded.findOne("transactions", "amount", 17.25).get(0));
+    assertEquals("Nick", reloaded.findOne("transactions", "recipient", "Anna").get(0));
+    reloaded.close();
+  }
+
+  @Test
+  public void testTransaction() throws Exception {
+    Transaction transaction = db.beginTransaction();
+    transaction.update("transactions", "sender", "Maria", "amount", 0.5);
+    transaction.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    // Rows changed earlier in the transaction are matched as they will be.
+    transaction.update("transactions", "sender", "Anna", "recipient", "Nick");
+    transaction.update("transactions", "amount", 0.5, "sender", "Mary");
+    transaction.update("transactions", "sender", "Nobody", "amount", 1.0);
+    assertEquals(0, db.find("transactions", "sender", "Anna").size());
+    assertEquals(4, transaction.commit());
+    assertEquals("Nick", db.findOne("transactions", "sender", "Anna").get(1));
+    assertEquals(0.5, db.findOne("transactions", "sender", "Mary").get(2));
+
+    // The transaction is replayed from the log.
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals("Nick", reloaded.findOne("transactions", "sender", "Anna").get(1));
+    assertEquals(0, reloaded.find("transactions", "sender", "Maria").size());
+    // The index given to the next row follows the row inserted by the transaction.
+    reloaded.insert("transactions", new ArrayList<>(Arrays.asList("Paul", "John", "1.0")));
+    reloaded.close();
+    assertTrue(new String(Files.readAllBytes(new File(path + "transactions.csv").toPath())).contains("4, Paul, John, 1.0"));
+  }
+
+  @Test
+  public void testRollback() throws Exception {
+    Transaction transaction = db.beginTransaction();
+    transaction.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    transaction.rollback();
+    assertEquals(0, db.find("transactions", "sender", "Anna").size());
+    try {
+      transaction.commit();
+      fail("A rolled back transaction can't be committed");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testMultiColumnUpdate() throws Exception {
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Maria", "John", "7.0")));
+    HashMap<String, Object> values = new HashMap<>();
+    values.put("recipient", "Anna");
+    values.put("amount", 1.0);
+    assertEquals(2, db.update("transactions", Condition.eq("sender", "Maria"), values));
+    assertEquals(2, db.find("transactions", "recipient", "Anna").size());
+    assertEquals(1.0, db.findOne("transactions", "recipient", "Anna").get(2));
+    assertEquals("Maria", db.findOne("transactions", "sender", "John").get(1));
+
+    db.createIndex("transactions", "recipient");
+    values.put("amount", 2.0);
+    assertEquals(0, db.update("transactions", Condition.and(Condition.eq("recipient", "Anna"), Condition.eq("sender", "John")), values));
+    assertEquals(1, db.update("transactions", Condition.and(Condition.eq("recipient", "Maria"), Condition.eq("sender", "John")), values));
+    assertEquals(2.0, db.findOne("transactions", "sender", "John").get(2));
+
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertEquals(3, reloaded.find("transactions", "recipient", "Anna").size());
+    reloaded.close();
+  }
+
+  @Test
+  public void testQuery() throws Exception {
+    for (int i = 0; i < 3000; i++) {
+      db.insert("transactions", new ArrayList<>(Arrays.asList("Client" + (i % 3), "Maria", Integer.toString(i) + ".0")));
+    }
+    List<Object> amounts = db.query("transactions")
+            .where(Condition.and(Condition.eq("sender", "Client1"), Condition.range("amount", 100.0, null)))
+            .select("amount")
+            .limit(3)
+            .stream()
+            .map(row -> row.get(0))
+            .collect(Collectors.toList());
+    assertEquals(Arrays.asList(100.0, 103.0, 106.0), amounts);
+
+    Iterator<ArrayList<Object>> rows = db.query("transactions")
+            .where(Condition.or(Condition.eq("sender", "John"), Condition.range("amount", null, 0.5)))
+            .iterator();
+    assertEquals(Arrays.asList("John", "Maria", 5.5), rows.next());
+    assertEquals(Arrays.asList("Client0", "Maria", 0.0), rows.next());
+    assertFalse(rows.hasNext());
+
+    db.createIndex("transactions", "amount", true);
+    assertEquals(1001, db.query("transactions").where(Condition.range("amount", 1000.0, 2000.0)).stream().count());
+    assertNull(db.findOne("transactions", "sender", "Nobody"));
+  }
+
+  @Test
+  public void testParallelScan() throws Exception {
+    Transaction transaction = db.beginTransaction();
+    for (int i = 0; i < 5 * Table.PARTITION_SIZE; i++) {
+      String recipient = i == 30000 ? "Anna" : "Maria";
+      transaction.insert("transactions", new ArrayList<>(Arrays.asList("Client" + (i % 4), recipient, (i % 10) + ".0")));
+    }
+    transaction.commit();
+    assertEquals(10240, db.find("transactions", "sender", "Client2").size());
+    assertEquals(1, db.find("transactions", "recipient", "Anna").size());
+    // Only the first match in table order is updated, though later partitions match too.
+    assertTrue(db.update("transactions", "recipient", "Maria", "sender", "First"));
+    assertEquals(5.5, db.findOne("transactions", "sender", "First").get(2));
+    assertTrue(db.update("transactions", "recipient", "Anna", "amount", 99.0));
+
+    assertEquals(40962, db.count("transactions", null));
+    assertEquals(10240, db.count("transactions", Condition.eq("sender", "Client0")));
+    assertEquals(36867, db.count("transactions", Condition.range("amount", 1.0, null)));
+    assertEquals(184320 + 7.5 + 99.0, db.sum("transactions", "amount", null).doubleValue(), 0.001);
+    assertEquals(4096L * 9, db.sum("transactions", "amount", Condition.eq("amount", 9.0)).longValue());
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    db.addTable("accounts", new ArrayList<>(Arrays.asList("owner", "balance")),
+            new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.LONG)), Database.STORAGE_FORMATS.BINARY);
+    db.insert("accounts", new ArrayList<>(Arrays.asList("Maria", "100")));
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0")));
+    assertEquals(1, db.snapshot());
+    db.close();
+    db = null;
+
+    Database restored = new Database(path);
+    restored.init();
+    assertTrue(restored.getTable("transactions").isRestored());
+    assertFalse(restored.getTable("accounts").isRestored());
+    assertEquals(new HashSet<>(Arrays.asList("transactions", "accounts")), restored.getLoadMillis().keySet());
+    assertEquals("John", restored.findOne("transactions", "sender", "Anna").get(1));
+    restored.insert("transactions", new ArrayList<>(Arrays.asList("Paul", "Anna", "1.0")));
+    restored.close();
+
+    // The CSV changed since the image was written, so it is read instead.
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertFalse(reloaded.getTable("transactions").isRestored());
+    assertEquals("Paul", reloaded.findOne("transactions", "recipient", "Anna").get(0));
+    assertEquals(100L, reloaded.findOne("accounts", "owner", "Maria").get(1));
+    assertEquals(1, reloaded.snapshot());
+    reloaded.close();
+
+    // A row rewritten with the same length, the modification time kept, still invalidates the image.
+    Path csv = Paths.get(path + "transactions.csv");
+    FileTime modified = Files.getLastModifiedTime(csv);
+    String text = new String(Files.readAllBytes(csv)).replace("Paul, Anna, 1.0", "Paul, Anna, 2.0");
+    Files.write(csv, text.getBytes());
+    Files.setLastModifiedTime(csv, modified);
+    Database edited = new Database(path);
+    edited.init();
+    assertFalse(edited.getTable("transactions").isRestored());
+    assertEquals(2.0, edited.findOne("transactions", "sender", "Paul").get(2));
+    edited.close();
+  }
+
+  @Test
+  public void testRowCursor() throws Exception {
+    for (Database.STORAGE_FORMATS format: Database.STORAGE_FORMATS.values()) {
+      String table = "accounts" + format;
+      db.addTable(table, new ArrayList<>(Arrays.asList("owner", "number", "balance", "open", "type")),
+              new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.LONG,
+                      Database.DATA_TYPES.DOUBLE, Database.DATA_TYPES.BOOLEAN, Database.DATA_TYPES.CHAR)), format);
+      db.insert(table, new ArrayList<>(Arrays.asList("Maria", "-1234567", "1000.5", "true", "S")));
+      db.insert(table, new ArrayList<>(Arrays.asList("John", "7654321", "20.25", "false", "C")));
+      db.insert(table, new ArrayList<>(Arrays.asList("Maria", "42", "1.0", "false", "C")));
+
+      StringBuilder visited = new StringBuilder();
+      double[] total = new double[1];
+      long count = db.query(table).where(Condition.eq("owner", "Maria")).forEach(row -> {
+        visited.append(row.getIndex()).append(row.getString(0)).append(row.getLong(1))
+                .append(row.getBoolean(3)).append(row.getChar(4)).append(';');
+        total[0] += row.getDouble(2);
+      });
+      assertEquals(format.toString(), 2, count);
+      assertEquals(format.toString(), "1Maria-1234567trueS;3Maria42falseC;", visited.toString());
+      assertEquals(1001.5, total[0], 0.0);
+      assertEquals(1, db.query(table).limit(1).forEach(row -> assertEquals(-1234567, row.getInt(1))));
+      assertEquals(7654321L - 1234567L + 42L, db.sum(table, "number", null));
+    }
+  }
+
+  @Test
+  public void testTypedConditions() throws Exception {
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "1.00")));
+    db.insert("transactions", new ArrayList<>(Arrays.asList("Paul", "John", "-0.0")));
+    assertEquals("Anna", db.findOne("transactions", "amount", 1.0).get(0));
+    assertEquals("Paul", db.findOne("transactions", "amount", 0.0).get(0));
+    assertTrue(db.update("transactions", "amount", 1.0, "recipient", "Maria"));
+    assertEquals(2, db.find("transactions", "recipient", "Maria").size());
+
+    assertEquals(Arrays.asList("Maria", "John"), senders(Condition.gt("amount", 1.0)));
+    assertEquals(Arrays.asList("Maria", "Anna"), senders(Condition.and(Condition.ge("amount", 1.0), Condition.lt("amount", 5.5))));
+    assertEquals(Arrays.asList("Anna", "Paul"), senders(Condition.le("amount", 1.0)));
+    assertEquals(Arrays.asList("Maria", "John", "Anna"), senders(Condition.between("amount", 1.0, 5.5)));
+    // The same rows are found through an index.
+    db.createIndex("transactions", "amount");
+    assertEquals("Paul", db.findOne("transactions", "amount", 0.0).get(0));
+    assertEquals("Paul", db.findOne("transactions", "amount", -0.0).get(0));
+    assertEquals(1, db.count("transactions", Condition.eq("amount", 0.0)));
+    assertEquals(Arrays.asList("Anna", "Paul"), senders(Condition.between("amount", 0.0, 1.0)));
+    assertEquals(Arrays.asList("Paul"), senders(Condition.between("amount", -1.0, 0.0)));
+
+    db.addTable("balances", new ArrayList<>(Arrays.asList("owner", "pence")),
+            new ArrayList<>(Arrays.asList(Database.DATA_TYPES.STRING, Database.DATA_TYPES.LONG)));
+    db.insert("balances", new ArrayList<>(Arrays.asList("Maria", "050")));
+    db.insert("balances", new ArrayList<>(Arrays.asList("John", "100")));
+    assertEquals("Maria", db.findOne("balances", "pence", 50L).get(0));
+    assertEquals(1, db.count("balances", Condition.gt("pence", 50L)));
+    assertEquals(0, db.count("balances", Condition.gt("pence", Long.MAX_VALUE)));
+  }
+
+  private List<Object> senders(Condition where) throws Exception {
+    return db.query("transactions").where(where).select("sender").stream().map(row -> row.get(0)).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testPrimaryKeys() throws Exception {
+    assertEquals(3, db.insert("transactions", new ArrayList<>(Arrays.asList("Anna", "John", "3.0"))));
+    assertEquals(Arrays.asList("John", "Maria", 5.5), db.get("transactions", 2));
+    HashMap<String, Object> values = new HashMap<>();
+    values.put("amount", 6.0);
+    assertTrue(db.update("transactions", 2, values));
+    assertEquals(6.0, db.get("transactions", 2).get(2));
+
+    assertTrue(db.delete("transactions", 1));
+    assertFalse(db.delete("transactions", 1));
+    assertFalse(db.update("transactions", 1, values));
+    assertNull(db.get("transactions", 1));
+    assertNull(db.findOne("transactions", "sender", "Maria"));
+    assertEquals(2, db.count("transactions", null));
+    assertEquals(9.0, db.sum("transactions", "amount", null).doubleValue(), 0.0);
+    // The row takes the slot of the deleted one, not its index.
+    assertEquals(4, db.insert("transactions", new ArrayList<>(Arrays.asList("Paul", "Nick", "1.0"))));
+    assertEquals(Arrays.asList("Paul", "John", "Anna"), db.query("transactions").select("sender").stream()
+            .map(row -> row.get(0)).collect(Collectors.toList()));
+    assertTrue(db.delete("transactions", 3));
+
+    // Recovered from the log, then from the table file once it is checkpointed.
+    Database reloaded = new Database(path);
+    reloaded.init();
+    assertNull(reloaded.get("transactions", 3));
+    assertEquals("Paul", reloaded.get("transactions", 4).get(0));
+    assertEquals(5, reloaded.insert("transactions", new ArrayList<>(Arrays.asList("Ines", "Nick", "2.0"))));
+    assertEquals(Arrays.asList("Paul", "John", "Ines"), reloaded.query("transactions").select("sender").stream()
+            .map(row -> row.get(0)).collect(Collectors.toList()));
+    assertTrue(reloaded.delete("transactions", 5));
+    reloaded.close();
+
+    Database restarted = new Database(path);
+    restarted.init();
+    assertEquals(2, restarted.count("transactions", null));
+    assertEquals(6, restarted.insert("transactions", new ArrayList<>(Arrays.asList("Lee", "Nick", "2.0"))));
+    assertEquals("Lee", restarted.get("transactions", 6).get(0));
+    restarted.close();
+  }
+}
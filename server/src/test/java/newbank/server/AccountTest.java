@@ -0,0 +1,108 @@
+package newbank.server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AccountTest {
+
+  @Test
+  public void testBalanceIsShownInPounds() {
+    Account account = new Account("Main", 1000.0);
+    assertEquals(100000, account.getBalanceInPence());
+    assertTrue(account.toString().contains("Balance: 1000.0\n"));
+  }
+
+  @Test
+  public void testNewAccountIsRenderedWithItsDetails() {
+    Account account = new Account("Main", 10.0);
+    String text = account.toString();
+    assertTrue(text.contains("Account No: " + account.getAccountNumber() + "\n"));
+    assertTrue(text.contains("Sort Code: " + account.getSortCode() + "\n"));
+    assertTrue(text.contains("Account Opened: " + account.getOpenDate() + "\n"));
+    assertFalse(text.contains("Account No: 0\n"));
+    assertFalse(text.contains("null"));
+  }
+
+  @Test
+  public void testAmountsMustBePositive() {
+    Account source = new Account("Main", 10.0);
+    Account target = new Account("Savings", 0.0);
+    assertFalse(source.transferInPence(0, target));
+    assertFalse(source.transferInPence(-500, target));
+    assertFalse(source.transfer(-5, target));
+    assertFalse(source.debit(-500));
+    try {
+      target.credit(-500);
+      fail("A negative credit must be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    assertEquals(1000, source.getBalanceInPence());
+    assertEquals(0, target.getBalanceInPence());
+  }
+
+  @Test
+  public void testConcurrentTransfersDontOverdraw() throws Exception {
+    Account source = new Account("Main", 100.0);
+    Account target = new Account("Savings", 0.0);
+    int threads = 8;
+    int attempts = 50;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    ArrayList<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      results.add(pool.submit(() -> {
+        start.await();
+        int transferred = 0;
+        for (int j = 0; j < attempts; j++) {
+          if (source.transfer(1, target)) { transferred++; }
+        }
+        return transferred;
+      }));
+    }
+    start.countDown();
+    int transferred = 0;
+    for (Future<Integer> result: results) {
+      transferred += result.get();
+    }
+    pool.shutdown();
+    // 400 attempts compete for 100 pounds: exactly 100 transfers succeed.
+    assertEquals(100, transferred);
+    assertEquals(0, source.getBalanceInPence());
+    assertEquals(10000, target.getBalanceInPence());
+  }
+
+  @Test
+  public void testConcurrentTransfersKeepTheTotal() throws Exception {
+    int accountCount = 16;
+    Account[] accounts = new Account[accountCount];
+    for (int i = 0; i < accountCount; i++) {
+      accounts[i] = new Account("Account" + i, 10.0);
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(accountCount);
+    for (int i = 0; i < accountCount; i++) {
+      int from = i;
+      pool.execute(() -> {
+        for (int j = 0; j < 10000; j++) {
+          accounts[from].transfer(1, accounts[(from + 1 + j % (accountCount - 1)) % accountCount]);
+        }
+      });
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+    long total = 0;
+    for (Account account: accounts) {
+      assertTrue(account.getBalanceInPence() >= 0);
+      total += account.getBalanceInPence();
+    }
+    assertEquals(accountCount * 1000L, total);
+  }
+}
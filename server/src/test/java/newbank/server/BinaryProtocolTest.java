@@ -0,0 +1,126 @@
+package newbank.server;
+
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import newbank.server.nio.NioServer;
+import static org.junit.Assert.*;
+
+public class BinaryProtocolTest {
+  protected NewBank newBank = new NewBank();
+  protected BinaryProtocol protocol = new BinaryProtocol(newBank, false);
+
+  @Test
+  public void testRequests() {
+    ByteBuffer response = protocol.handle(frame(BinaryProtocol.SHOW_ACCOUNTS));
+    assertEquals(BinaryProtocol.ERROR, response.get(4));
+
+    response = protocol.handle(frame(BinaryProtocol.LOGIN, "test", "password"));
+    assertEquals(1, response.getInt(0));
+    assertEquals(BinaryProtocol.OK, response.get(4));
+
+    assertEquals(BinaryProtocol.OK, protocol.handle(frame(BinaryProtocol.NEW_ACCOUNT, "Savings")).get(4));
+    assertEquals(BinaryProtocol.OK, protocol.handle(move(2550, "Main", "Savings")).get(4));
+    assertEquals(BinaryProtocol.ERROR, protocol.handle(move(-1, "Main", "Savings")).get(4));
+
+    response = protocol.handle(frame(BinaryProtocol.SHOW_ACCOUNTS));
+    response.getInt();
+    assertEquals(BinaryProtocol.ACCOUNTS, response.get());
+    assertEquals(2, response.getInt());
+    Map<String, Long> balances = new HashMap<>();
+    for (int i = 0; i < 2; i++) {
+      String name = BinaryProtocol.getString(response);
+      response.getInt();
+      response.getInt();
+      balances.put(name, response.getLong());
+    }
+    assertEquals(Long.valueOf(97450), balances.get("Main"));
+    assertEquals(Long.valueOf(102550), balances.get("Savings"));
+  }
+
+  @Test
+  public void testMalformedRequest() {
+    ByteBuffer request = ByteBuffer.allocate(3);
+    request.put(BinaryProtocol.LOGIN).putShort((short) 10).flip();
+    ByteBuffer response = protocol.handle(request);
+    assertEquals(BinaryProtocol.ERROR, response.get(4));
+  }
+
+  @Test
+  public void testBlockingServer() throws Exception {
+    NewBankServer server = new NewBankServer(0, SessionExecutors.bounded(1), 1);
+    server.start();
+    try {
+      assertSession(server.getLocalPort());
+    } finally {
+      server.shutdown(100);
+    }
+  }
+
+  @Test
+  public void testNioServer() throws Exception {
+    NioServer server = new NioServer(0, 1);
+    server.start();
+    try {
+      assertSession(server.getLocalPort());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  private static void assertSession(int port) throws IOException {
+    try (Socket socket = new Socket("localhost", port)) {
+      socket.setSoTimeout(5000);
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      out.write(BinaryProtocol.MAGIC);
+      // The login menu is sent before the server knows the protocol, skip it.
+      int matched = 0;
+      while (matched < BinaryProtocol.MAGIC.length) {
+        byte next = in.readByte();
+        matched = next == BinaryProtocol.MAGIC[matched] ? matched + 1 : (next == 0 ? 1 : 0);
+      }
+      // Both requests are sent before reading the responses.
+      write(out, frame(BinaryProtocol.LOGIN, "test", "password"));
+      write(out, frame(BinaryProtocol.SHOW_ACCOUNTS));
+      assertEquals(1, in.readInt());
+      assertEquals(BinaryProtocol.OK, in.readByte());
+      in.readInt();
+      assertEquals(BinaryProtocol.ACCOUNTS, in.readByte());
+      assertEquals(1, in.readInt());
+      assertEquals("Main", in.readUTF());
+    }
+  }
+
+  private static void write(DataOutputStream out, ByteBuffer frame) throws IOException {
+    out.writeInt(frame.remaining());
+    out.write(frame.array(), frame.position(), frame.remaining());
+    out.flush();
+  }
+
+  private static ByteBuffer frame(byte opcode, String... strings) {
+    ByteBuffer frame = ByteBuffer.allocate(256);
+    frame.put(opcode);
+    for (String value: strings) {
+      BinaryProtocol.putString(frame, value);
+    }
+    frame.flip();
+    return frame;
+  }
+
+  private static ByteBuffer move(long pence, String from, String to) {
+    ByteBuffer frame = ByteBuffer.allocate(256);
+    frame.put(BinaryProtocol.MOVE).putLong(pence);
+    BinaryProtocol.putString(frame, from);
+    BinaryProtocol.putString(frame, to);
+    frame.flip();
+    return frame;
+  }
+}
@@ -0,0 +1,30 @@
+package newbank.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CustomerTest {
+
+  @Test
+  public void testAccountsRenderingIsCached() throws Exception {
+    Customer customer = new Customer();
+    Account main = customer.addAccount("Main", 1000.0);
+    String accounts = customer.accountsToString();
+    assertSame(accounts, customer.accountsToString());
+    assertTrue(accounts.contains("Balance: 1000.0\n"));
+
+    customer.addAccount("Savings", 0.0);
+    String withSavings = customer.accountsToString();
+    assertNotSame(accounts, withSavings);
+    assertTrue(withSavings.contains("Account Name: Savings"));
+
+    assertNull(customer.moveMoneyBetweenAccounts(100, "Main", "Savings"));
+    String moved = customer.accountsToString();
+    assertTrue(moved.contains("Balance: 900.0\n"));
+    assertTrue(moved.contains("Balance: 100.0\n"));
+
+    main.credit(50);
+    assertTrue(customer.accountsToString().contains("Balance: 900.5\n"));
+  }
+}
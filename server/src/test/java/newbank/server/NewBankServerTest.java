@@ -0,0 +1,100 @@
+package newbank.server;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.*;
+
+public class NewBankServerTest {
+
+  @Test
+  public void testConnectionLimitAndShutdown() throws Exception {
+    NewBankServer server = new NewBankServer(0, SessionExecutors.virtualThreads(1), 1);
+    server.start();
+    try (Socket first = new Socket("localhost", server.getLocalPort());
+         Socket second = new Socket("localhost", server.getLocalPort())) {
+      BufferedReader firstIn = reader(first, 5000);
+      BufferedReader secondIn = reader(second, 300);
+      assertTrue(readUntil(firstIn, "2 to open a NewBank Account."));
+      // The limit is reached, the second client waits for the first one to leave.
+      assertFalse(readUntil(secondIn, "2 to open a NewBank Account."));
+
+      first.close();
+      second.setSoTimeout(5000);
+      assertTrue(readUntil(secondIn, "2 to open a NewBank Account."));
+
+      server.shutdown(100);
+      // The open session is closed once the timeout is over, reading times out otherwise.
+      String line;
+      do {
+        line = secondIn.readLine();
+      } while (line != null);
+    }
+  }
+
+  @Test
+  public void testPipelinedRequests() throws Exception {
+    NewBankServer server = new NewBankServer(0, SessionExecutors.bounded(1), 1);
+    server.start();
+    try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+      BufferedReader in = reader(socket, 5000);
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      out.print("1\ntest\npassword\nPIPELINE\n");
+      out.flush();
+      assertTrue(readUntil(in, RequestPipeline.ENABLED_MSG));
+      // The requests are sent without waiting for the responses.
+      out.print("1 NEWACCOUNT\n2 BATCH\n3 HELP\n4 NEWACCOUNT\nEND\n");
+      out.flush();
+      assertEquals("#1 1", in.readLine());
+      assertEquals(NewBank.NOT_ACCOUNT_NAME_MSG, in.readLine());
+      assertTrue(readUntil(in, "#4 1"));
+      assertEquals(NewBank.NOT_ACCOUNT_NAME_MSG, in.readLine());
+      assertEquals("#2 1", in.readLine());
+      assertEquals("BATCH DONE 2", in.readLine());
+    } finally {
+      server.shutdown(100);
+    }
+  }
+
+  @Test
+  public void testRejectedSessionsAreClosed() throws Exception {
+    ExecutorService sessions = SessionExecutors.bounded(1);
+    sessions.shutdown();
+    NewBankServer server = new NewBankServer(0, sessions, 1);
+    server.start();
+    try {
+      // With one permit, the second client is only accepted if the first one gave its permit back.
+      for (int i = 0; i < 2; i++) {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+          assertNull(reader(socket, 5000).readLine());
+        }
+      }
+    } finally {
+      server.shutdown(100);
+    }
+  }
+
+  private static BufferedReader reader(Socket socket, int timeoutMillis) throws IOException {
+    socket.setSoTimeout(timeoutMillis);
+    return new BufferedReader(new InputStreamReader(socket.getInputStream()));
+  }
+
+  private static boolean readUntil(BufferedReader in, String expected) throws IOException {
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.contains(expected)) { return true; }
+      }
+    } catch (SocketTimeoutException e) {
+      return false;
+    }
+    return false;
+  }
+}
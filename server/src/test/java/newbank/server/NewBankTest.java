@@ -1,6 +1,15 @@
 package newbank.server;
 
 import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.junit.Assert.*;
 
 public class NewBankTest {
@@ -32,4 +41,66 @@ public class NewBankTest {
     assertEquals(String.format("'%s' %s. %s",
             newAccountName, NewBank.ACCOUNT_CREATED_SUCCESSFULLY_MSG, NewBank.ANYTHING_ELSE_MSG), response);
   }
+  @Test
+  public void testConcurrentMovesAcrossCustomers() throws Exception {
+    int customerCount = 8;
+    int moves = 500;
+    ExecutorService pool = Executors.newFixedThreadPool(customerCount * 2);
+    ArrayList<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < customerCount; i++) {
+      CustomerID id = newBank.addCustomer("customer" + i, "password", new PrintWriter(new StringWriter()));
+      newBank.processRequest(id, "NEWACCOUNT Savings");
+      // Two sessions of the same customer move money between the same accounts in opposite directions.
+      results.add(pool.submit(() -> repeat(id, "MOVE 1 Main Savings", moves)));
+      results.add(pool.submit(() -> repeat(id, "MOVE 1 Savings Main", moves)));
+    }
+    for (Future<Boolean> result: results) {
+      assertTrue(result.get());
+    }
+    pool.shutdown();
+    for (int i = 0; i < customerCount; i++) {
+      String accounts = newBank.processRequest(new CustomerID("customer" + i), "SHOWMYACCOUNTS");
+      assertEquals(2, accounts.split("Balance: 1000.0\n", -1).length - 1);
+    }
+    assertTrue(newBank.getLockAcquisitions() >= customerCount * moves * 2);
+    assertTrue(newBank.getContendedLocks() <= newBank.getLockAcquisitions());
+  }
+
+  @Test
+  public void testShowAccountsNeverSeesHalfAMove() throws Exception {
+    CustomerID id = newBank.addCustomer("mover", "password", new PrintWriter(new StringWriter()));
+    newBank.processRequest(id, "NEWACCOUNT Savings");
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread mover = new Thread(() -> {
+      while (running.get()) {
+        newBank.processRequest(id, "MOVE 1 Main Savings");
+        newBank.moveMoney(id, 100, "Savings", "Main");
+      }
+    });
+    mover.start();
+    try {
+      for (int i = 0; i < 20000; i++) {
+        double total = 0;
+        for (String line: newBank.processRequest(id, "SHOWMYACCOUNTS").split("\n")) {
+          if (line.startsWith("Balance: ")) { total += Double.parseDouble(line.substring(9)); }
+        }
+        assertEquals(2000.0, total, 0.0);
+        total = 0;
+        for (Account account: newBank.getAccounts(id)) {
+          total += account.getBalance();
+        }
+        assertEquals(2000.0, total, 0.0);
+      }
+    } finally {
+      running.set(false);
+      mover.join();
+    }
+  }
+
+  private boolean repeat(CustomerID id, String request, int times) {
+    for (int i = 0; i < times; i++) {
+      if (!newBank.processRequest(id, request).startsWith("SUCCESS")) { return false; }
+    }
+    return true;
+  }
 }
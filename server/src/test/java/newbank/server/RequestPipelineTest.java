@@ -0,0 +1,45 @@
+package newbank.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestPipelineTest {
+  protected NewBank newBank = new NewBank();
+  protected RequestPipeline pipeline = new RequestPipeline(newBank, new CustomerID("test"));
+
+  @Test
+  public void testResponsesAreTagged() {
+    assertEquals("#1 1\n" + NewBank.NOT_ACCOUNT_NAME_MSG + "\n", pipeline.onLine("1 NEWACCOUNT"));
+    String accounts = pipeline.onLine("a2 SHOWMYACCOUNTS");
+    assertTrue(accounts.startsWith("#a2 5\nAccount Name: Main\n"));
+    assertEquals(5, accounts.split("\n").length - 1);
+    assertEquals("", pipeline.onLine(""));
+  }
+
+  @Test
+  public void testBatch() {
+    assertEquals("", pipeline.onLine("10 BATCH"));
+    assertEquals("", pipeline.onLine("11 NEWACCOUNT Savings"));
+    assertEquals("", pipeline.onLine("12 MOVE 100 Main Savings"));
+    assertEquals("", pipeline.onLine("13 MOVE 5000 Main Savings"));
+    String responses = pipeline.onLine("END");
+    assertEquals("#11 1\n'Savings' " + NewBank.ACCOUNT_CREATED_SUCCESSFULLY_MSG + ". " + NewBank.ANYTHING_ELSE_MSG + "\n"
+            + "#12 1\nSUCCESS, Anything else?\n"
+            + "#13 2\nFAIL: The account does not have enough funds.\nPlease try again\n"
+            + "#10 1\nBATCH DONE 3\n", responses);
+  }
+
+  @Test
+  public void testBatchTooLarge() {
+    assertEquals("", pipeline.onLine("1 BATCH"));
+    for (int i = 0; i < RequestPipeline.MAX_BATCH_SIZE; i++) {
+      assertEquals("", pipeline.onLine(i + " MOVE 1 Main Main"));
+    }
+    assertEquals("#1 1\n" + RequestPipeline.BATCH_TOO_LARGE_MSG + "\n", pipeline.onLine("2 MOVE 1 Main Main"));
+    // The rest of the batch is dropped, none of it runs.
+    assertEquals("", pipeline.onLine("3 NEWACCOUNT Savings"));
+    assertEquals("", pipeline.onLine("END"));
+    assertTrue(pipeline.onLine("4 NEWACCOUNT Savings").contains(NewBank.ACCOUNT_CREATED_SUCCESSFULLY_MSG));
+  }
+}
@@ -0,0 +1,54 @@
+package newbank.server.commands;
+
+import org.junit.Test;
+
+import newbank.server.Customer;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import static org.junit.Assert.*;
+
+public class CommandRegistryTest {
+
+  @Test
+  public void testTokens() {
+    Tokens tokens = Tokens.parse("  MOVE\t-25   Main Savings \r");
+    assertEquals(4, tokens.size());
+    assertTrue(tokens.is(0, "MOVE"));
+    assertFalse(tokens.is(0, "MOV"));
+    assertEquals(-25, tokens.getInt(1));
+    assertEquals("Savings", tokens.getString(3));
+    assertEquals(0, Tokens.parse(" \t ").size());
+    assertEquals(Integer.MIN_VALUE, Tokens.parse("-2147483648").getInt(0));
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testIntOverflow() {
+    Tokens.parse("2147483648").getInt(0);
+  }
+
+  @Test
+  public void testRegisteredCommand() {
+    NewBank newBank = new NewBank();
+    CustomerID customer = new CustomerID("test");
+    assertEquals(NewBank.FAIL_MSG, newBank.processRequest(customer, "BALANCE"));
+    assertEquals(NewBank.SELECT_ACTION_MSG, newBank.processRequest(customer, "  "));
+    newBank.registerCommand(new Command() {
+      @Override
+      public String getName() {
+        return "BALANCE";
+      }
+
+      @Override
+      public boolean changesAccounts() {
+        return false;
+      }
+
+      @Override
+      public String execute(Customer customer, Tokens tokens) {
+        return String.valueOf(customer.getAccount(tokens.getString(1)).getBalance());
+      }
+    });
+    assertEquals("1000.0", newBank.processRequest(customer, "BALANCE Main"));
+    assertEquals("FAIL: invalid number for amount\nPlease try again", newBank.processRequest(customer, "MOVE 1x Main Main"));
+  }
+}
@@ -0,0 +1,113 @@
+package newbank.server.nio;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+import newbank.server.Customer;
+import newbank.server.NewBank;
+import newbank.server.commands.Command;
+import newbank.server.commands.Tokens;
+import static org.junit.Assert.*;
+
+public class NioServerTest {
+
+  @Test
+  public void testSessionFlow() {
+    Session session = new Session(new NewBank());
+    assertTrue(session.start().contains("1 to login."));
+    assertTrue(session.onLine("3").contains("Invalid option selected."));
+    session.onLine("2");
+    session.onLine("newUser");
+    assertTrue(session.onLine("weak").contains("Invalid Password"));
+    assertEquals(Session.State.MENU, session.getState());
+    session.onLine("1");
+    session.onLine("test");
+    assertTrue(session.onLine("password").contains("Login successful"));
+    assertEquals(Session.State.REQUESTS, session.getState());
+    assertTrue(session.onLine("NEWACCOUNT").contains(NewBank.NOT_ACCOUNT_NAME_MSG));
+  }
+
+  @Test
+  public void testClientsAreServedConcurrently() throws IOException {
+    NioServer server = new NioServer(0, 2, new NewBank());
+    server.start();
+    try (Socket first = new Socket("localhost", server.getLocalPort());
+         Socket second = new Socket("localhost", server.getLocalPort())) {
+      BufferedReader firstIn = reader(first);
+      BufferedReader secondIn = reader(second);
+      PrintWriter firstOut = new PrintWriter(first.getOutputStream(), true);
+      PrintWriter secondOut = new PrintWriter(second.getOutputStream(), true);
+      readUntil(firstIn, "2 to open a NewBank Account.");
+      readUntil(secondIn, "2 to open a NewBank Account.");
+
+      // The second client logs in while the first one is idle in the middle of its login.
+      firstOut.println("1");
+      readUntil(firstIn, "Enter Username");
+      secondOut.print("1\r\ntest\r\npassword\r\n");
+      secondOut.flush();
+      readUntil(secondIn, "Login successful, welcome to NewBank!");
+      secondOut.println("NEWACCOUNT");
+      readUntil(secondIn, NewBank.NOT_ACCOUNT_NAME_MSG);
+
+      firstOut.println("test");
+      firstOut.println("password");
+      readUntil(firstIn, "Login successful, welcome to NewBank!");
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  public void testFailingSessionOnlyClosesItsConnection() throws IOException {
+    NewBank bank = new NewBank();
+    bank.registerCommand(new Command() {
+      public String getName() { return "CRASH"; }
+      public boolean changesAccounts() { return false; }
+      public String execute(Customer customer, Tokens tokens) { throw new IllegalStateException("Crashed on purpose"); }
+    });
+    // One loop serves both clients.
+    NioServer single = new NioServer(0, 1, bank);
+    single.start();
+    try (Socket failing = new Socket("localhost", single.getLocalPort());
+         Socket other = new Socket("localhost", single.getLocalPort())) {
+      BufferedReader failingIn = reader(failing);
+      BufferedReader otherIn = reader(other);
+      PrintWriter failingOut = new PrintWriter(failing.getOutputStream(), true);
+      PrintWriter otherOut = new PrintWriter(other.getOutputStream(), true);
+      readUntil(failingIn, "2 to open a NewBank Account.");
+      readUntil(otherIn, "2 to open a NewBank Account.");
+      failingOut.print("1\ntest\npassword\n");
+      failingOut.flush();
+      readUntil(failingIn, "Login successful, welcome to NewBank!");
+      failingOut.println("CRASH");
+      // The server closes the connection: the stream ends instead of timing out.
+      while (failingIn.readLine() != null) {
+        // Skips what was sent before.
+      }
+
+      otherOut.print("1\ntest\npassword\n");
+      otherOut.flush();
+      readUntil(otherIn, "Login successful, welcome to NewBank!");
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  private static BufferedReader reader(Socket socket) throws IOException {
+    socket.setSoTimeout(5000);
+    return new BufferedReader(new InputStreamReader(socket.getInputStream()));
+  }
+
+  private static void readUntil(BufferedReader in, String expected) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.contains(expected)) { return; }
+    }
+    fail(String.format("'%s' was never received", expected));
+  }
+}
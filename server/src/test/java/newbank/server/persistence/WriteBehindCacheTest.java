@@ -0,0 +1,187 @@
+package newbank.server.persistence;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import newbank.database.Database;
+import newbank.database.Transaction;
+
+import newbank.server.Account;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import static org.junit.Assert.*;
+
+public class WriteBehindCacheTest {
+  private File folder;
+
+  @Before
+  public void setUp() throws Exception {
+    folder = Files.createTempDirectory("newbank-store").toFile();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(folder);
+  }
+
+  private WriteBehindCache open() throws Exception {
+    // Flushes only when asked to or closed.
+    return new WriteBehindCache(AccountStore.open(folder.getPath() + "/"), 60000, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testChangesSurviveRestart() throws Exception {
+    CustomerID test = new CustomerID("test");
+    WriteBehindCache cache = open();
+    NewBank bank = new NewBank();
+    bank.load(cache);
+    bank.processRequest(test, "NEWACCOUNT Savings");
+    for (int i = 0; i < 10; i++) {
+      bank.processRequest(test, "MOVE 10 Main Savings");
+    }
+    // Two new accounts, and ten moves on them written once.
+    assertEquals(4, cache.getPending());
+    cache.close();
+
+    cache = open();
+    bank = new NewBank();
+    bank.load(cache);
+    assertEquals(90000, balance(bank, test, "Main"));
+    assertEquals(110000, balance(bank, test, "Savings"));
+    bank.processRequest(test, "NEWACCOUNT Holidays");
+    bank.processRequest(test, "MOVE 1 Savings Holidays");
+    cache.flush();
+    assertEquals(0, cache.getPending());
+    cache.close();
+
+    cache = open();
+    bank = new NewBank();
+    bank.load(cache);
+    assertEquals(3, bank.getAccounts(test).size());
+    assertEquals(100100, balance(bank, test, "Holidays"));
+    cache.close();
+  }
+
+  @Test
+  public void testDuplicateUsernameIsNotSaved() throws Exception {
+    WriteBehindCache cache = open();
+    NewBank bank = new NewBank();
+    bank.load(cache);
+    cache.flush();
+    StringWriter text = new StringWriter();
+    assertNull(bank.addCustomer("test", "Password1!", new PrintWriter(text)));
+    assertEquals(0, cache.getPending());
+    assertNotNull(bank.addCustomer("maria", "Password1!", new PrintWriter(text)));
+    assertEquals(1, cache.getPending());
+    cache.close();
+
+    cache = open();
+    bank = new NewBank();
+    bank.load(cache);
+    assertEquals(1, bank.getAccounts(new CustomerID("test")).size());
+    assertEquals(1, bank.getAccounts(new CustomerID("maria")).size());
+    cache.close();
+  }
+
+  @Test
+  public void testFlushNeverSplitsATransfer() throws Exception {
+    ConcurrentHashMap<String, Long> saved = new ConcurrentHashMap<>();
+    Database database = new Database(folder.getPath() + "/");
+    database.create();
+    AccountStore store = new AccountStore(database) {
+      @Override
+      public void insert(Transaction transaction, String owner, Account account) {
+        super.insert(transaction, owner, account);
+        saved.put(account.getAccountName(), account.getBalanceInPence());
+      }
+
+      @Override
+      public boolean update(Transaction transaction, Account account) {
+        saved.put(account.getAccountName(), account.getBalanceInPence());
+        return super.update(transaction, account);
+      }
+    };
+    WriteBehindCache cache = new WriteBehindCache(store, 60000, Integer.MAX_VALUE);
+    NewBank bank = new NewBank();
+    bank.load(cache);
+    CustomerID test = new CustomerID("test");
+    bank.processRequest(test, "NEWACCOUNT Savings");
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread mover = new Thread(() -> {
+      while (running.get()) {
+        bank.processRequest(test, "MOVE 1 Main Savings");
+        bank.processRequest(test, "MOVE 1 Savings Main");
+      }
+    });
+    mover.start();
+    try {
+      for (int i = 0; i < 20000; i++) {
+        cache.flush();
+        assertEquals(200000L, saved.get("Main") + saved.get("Savings"));
+      }
+    } finally {
+      running.set(false);
+      mover.join();
+    }
+    cache.close();
+  }
+
+  @Test
+  public void testFailedFlushIsRetried() throws Exception {
+    AtomicBoolean failing = new AtomicBoolean(true);
+    Database database = new Database(folder.getPath() + "/");
+    database.create();
+    AccountStore store = new AccountStore(database) {
+      @Override
+      public void commit(Transaction transaction) throws IOException {
+        if (failing.get()) {
+          transaction.rollback();
+          throw new IOException("Failing on purpose");
+        }
+        super.commit(transaction);
+      }
+    };
+    WriteBehindCache cache = new WriteBehindCache(store, 60000, Integer.MAX_VALUE);
+    NewBank bank = new NewBank();
+    bank.load(cache);
+    CustomerID test = new CustomerID("test");
+    bank.processRequest(test, "NEWACCOUNT Savings");
+    bank.processRequest(test, "MOVE 10 Main Savings");
+    assertEquals(4, cache.getPending());
+    cache.flush();
+    // Nothing was written, so every change waits for the next flush.
+    assertEquals(4, cache.getPending());
+    bank.processRequest(test, "MOVE 5 Main Savings");
+    assertEquals(4, cache.getPending());
+    failing.set(false);
+    cache.flush();
+    assertEquals(0, cache.getPending());
+    bank.processRequest(test, "MOVE 1 Savings Main");
+    cache.close();
+
+    cache = open();
+    bank = new NewBank();
+    bank.load(cache);
+    assertEquals(2, bank.getAccounts(test).size());
+    assertEquals(98600, balance(bank, test, "Main"));
+    assertEquals(101400, balance(bank, test, "Savings"));
+    cache.close();
+  }
+
+  private static long balance(NewBank bank, CustomerID customer, String name) {
+    for (Account account: bank.getAccounts(customer)) {
+      if (account.getAccountName().equals(name)) { return account.getBalanceInPence(); }
+    }
+    return -1;
+  }
+}